@@ -105,6 +105,7 @@ dependencies {
         exclude(group = "org.jetbrains.kotlin")
     }
     testImplementation("net.fabricmc:fabric-installer:0.9.0")
+    testImplementation("net.fabricmc.unpick:unpick-cli:2.3.0")
     testImplementation("org.mockito:mockito-core:4.7.0")
 
     compileOnly("org.jetbrains:annotations:23.0.0")
@@ -59,12 +59,25 @@ public abstract class DecompilerOptions implements Named {
 	 */
 	public abstract Property<Integer> getMaxThreads();
 
+	/**
+	 * When enabled the forked decompiler JVM is kept warm between builds and reused by the next decompile with the same classpath and memory.
+	 * Disabled by default.
+	 */
+	public abstract Property<Boolean> getReuseWorker();
+
+	/**
+	 * How long a reused decompiler JVM is kept alive while idle, in minutes.
+	 */
+	public abstract Property<Integer> getWorkerIdleTimeout();
+
 	public DecompilerOptions() {
 		getDecompilerClassName().finalizeValueOnRead();
 		getClasspath().finalizeValueOnRead();
 		getOptions().finalizeValueOnRead();
 		getMemory().convention(4096L).finalizeValueOnRead();
 		getMaxThreads().convention(Runtime.getRuntime().availableProcessors()).finalizeValueOnRead();
+		getReuseWorker().convention(false).finalizeValueOnRead();
+		getWorkerIdleTimeout().convention(10).finalizeValueOnRead();
 	}
 
 	public String getFormattedName() {
@@ -84,6 +84,14 @@ public abstract class AnnotationProcessorInvoker<T extends Task> {
 
 	protected abstract File getRefmapDestinationDir(T task);
 
+	/**
+	 * Tracks the mixin mappings written by the annotation processor as an output of the compile task,
+	 * so that they are up-to-date checked and restored from the build cache along with the classes.
+	 */
+	protected void registerMixinMappingsOutput(T task, File mixinMappings) {
+		task.getOutputs().file(mixinMappings).withPropertyName("mixinMappings").optional();
+	}
+
 	protected final String getRefmapDestination(T task, String refmapName) throws IOException {
 		return new File(getRefmapDestinationDir(task), refmapName).getCanonicalPath();
 	}
@@ -91,10 +99,11 @@ public abstract class AnnotationProcessorInvoker<T extends Task> {
 	private void passMixinArguments(T task, SourceSet sourceSet) {
 		try {
 			LoomGradleExtension loom = LoomGradleExtension.get(project);
+			File mixinMappings = MixinMappingsService.getMixinMappingFile(project, sourceSet);
 			String refmapName = Objects.requireNonNull(MixinExtension.getMixinInformationContainer(sourceSet)).refmapNameProvider().get();
 			Map<String, String> args = new HashMap<>() {{
 					put(Constants.MixinArguments.IN_MAP_FILE_NAMED_INTERMEDIARY, loom.getMappingsProvider().tinyMappings.toFile().getCanonicalPath());
-					put(Constants.MixinArguments.OUT_MAP_FILE_NAMED_INTERMEDIARY, MixinMappingsService.getMixinMappingFile(project, sourceSet).getCanonicalPath());
+					put(Constants.MixinArguments.OUT_MAP_FILE_NAMED_INTERMEDIARY, mixinMappings.getCanonicalPath());
 					put(Constants.MixinArguments.OUT_REFMAP_FILE, getRefmapDestination(task, refmapName));
 					put(Constants.MixinArguments.DEFAULT_OBFUSCATION_ENV, "named:" + loom.getMixin().getRefmapTargetNamespace().get());
 					put(Constants.MixinArguments.QUIET, "true");
@@ -113,6 +122,7 @@ public abstract class AnnotationProcessorInvoker<T extends Task> {
 
 			project.getLogger().debug("Outputting refmap to dir: " + getRefmapDestinationDir(task) + " for compile task: " + task);
 			args.forEach((k, v) -> passArgument(task, k, v));
+			registerMixinMappingsOutput(task, mixinMappings);
 		} catch (IOException e) {
 			project.getLogger().error("Could not configure mixin annotation processors", e);
 		}
@@ -123,4 +123,9 @@ public class KaptApInvoker extends AnnotationProcessorInvoker<JavaCompile> {
 	protected File getRefmapDestinationDir(JavaCompile task) {
 		return dummyRefmapDirectory;
 	}
+
+	@Override
+	protected void registerMixinMappingsOutput(JavaCompile task, File mixinMappings) {
+		// Written by the kapt task rather than the compile task.
+	}
 }
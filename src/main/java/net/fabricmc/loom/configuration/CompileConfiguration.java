@@ -58,6 +58,9 @@ import net.fabricmc.loom.configuration.providers.minecraft.MinecraftSourceSets;
 import net.fabricmc.loom.configuration.providers.minecraft.mapped.IntermediaryMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.mapped.NamedMinecraftProvider;
 import net.fabricmc.loom.extension.MixinExtension;
+import net.fabricmc.loom.task.MigrateMappingsTask;
+import net.fabricmc.loom.task.launch.GenerateRemapClasspathTask;
+import net.fabricmc.loom.util.ArtifactLock;
 import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ExceptionUtil;
@@ -177,15 +180,18 @@ public final class CompileConfiguration {
 		}
 	}
 
-	// This is not thread safe across projects synchronize it here just to be sure, might be possible to move this further down, but for now this will do.
-	private static synchronized void setupMinecraft(Project project) throws Exception {
+	// Projects are configured in parallel, each provider locks the files it produces so that projects sharing them wait for a single producer.
+	private static void setupMinecraft(Project project) throws Exception {
 		final LoomGradleExtension extension = LoomGradleExtension.get(project);
 		final MinecraftJarConfiguration jarConfiguration = extension.getMinecraftJarConfiguration().get();
 
 		// Provide the vanilla mc jars -- TODO share across projects.
 		final MinecraftProvider minecraftProvider = jarConfiguration.getMinecraftProviderFunction().apply(project);
 		extension.setMinecraftProvider(minecraftProvider);
-		minecraftProvider.provide();
+
+		try (ArtifactLock ignored = minecraftProvider.lockWorkingDir()) {
+			minecraftProvider.provide();
+		}
 
 		final DependencyInfo mappingsDep = DependencyInfo.create(project, Constants.Configurations.MAPPINGS);
 		final MappingsProviderImpl mappingsProvider = MappingsProviderImpl.getInstance(project, mappingsDep, minecraftProvider);
@@ -203,8 +209,19 @@ public final class CompileConfiguration {
 			namedMinecraftProvider = jarConfiguration.getProcessedNamedMinecraftProviderBiFunction().apply(namedMinecraftProvider, jarProcessorManager);
 		}
 
+		// Remapped on first use during configuration, it is not needed to provide the named jars.
 		extension.setIntermediaryMinecraftProvider(intermediaryMinecraftProvider);
-		intermediaryMinecraftProvider.provide(true);
+
+		// Tasks reading the intermediary jars at execution time get them remapped once the task graph is known, never from their actions.
+		project.getGradle().getTaskGraph().whenReady(graph -> {
+			final boolean required = graph.getAllTasks().stream()
+					.filter(task -> task.getProject() == project)
+					.anyMatch(task -> task instanceof GenerateRemapClasspathTask || task instanceof MigrateMappingsTask);
+
+			if (required) {
+				intermediaryMinecraftProvider.provideMinecraftJars();
+			}
+		});
 
 		extension.setNamedMinecraftProvider(namedMinecraftProvider);
 		namedMinecraftProvider.provide(true);
@@ -0,0 +1,301 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.accesswidener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.util.ArtifactLock;
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.zip.RawZipFile;
+
+/**
+ * A compact index of the classes in a jar and the fields and methods they declare.
+ *
+ * <p>The index is written once per jar hash and memory mapped, the members of a class are only decoded when the class is looked up.
+ */
+public final class ClassMemberIndex {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ClassMemberIndex.class);
+	private static final int MAGIC = 0x4C434D49;
+	private static final int VERSION = 1;
+	private static final String EXTENSION = ".members";
+	// Indexes are content addressed, so an open index never becomes stale.
+	private static final Cache<Path, ClassMemberIndex> CACHE = CacheBuilder.newBuilder()
+			.maximumSize(8)
+			.build();
+
+	private final ByteBuffer buffer;
+	private final Map<String, Integer> classOffsets;
+	private final Map<String, ClassMembers> classes = new ConcurrentHashMap<>();
+
+	private ClassMemberIndex(ByteBuffer buffer) {
+		if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+			throw new IllegalStateException("Unsupported class member index");
+		}
+
+		final int classCount = buffer.getInt();
+		final Map<String, Integer> offsets = new HashMap<>(classCount);
+
+		for (int i = 0; i < classCount; i++) {
+			offsets.put(readString(buffer), buffer.getInt());
+		}
+
+		// Offsets are relative to the end of the class table
+		this.buffer = buffer.slice();
+		this.classOffsets = offsets;
+	}
+
+	/**
+	 * Returns the indexes of the given jars, writing them to the given directory when a jar has not been indexed before.
+	 * Indexes of other jars are removed from the directory.
+	 */
+	public static List<ClassMemberIndex> getOrCreate(Collection<Path> jars, Path directory) throws IOException {
+		final List<ClassMemberIndex> indexes = new ArrayList<>();
+		final Set<Path> indexFiles = new HashSet<>();
+		boolean written = false;
+
+		// A single lock for the directory, so that no lock file is left behind for each index.
+		try (ArtifactLock ignored = ArtifactLock.acquire(ArtifactLock.lockFileFor(directory))) {
+			for (Path jar : jars) {
+				final Path index = directory.resolve(Checksum.sha256Hex(jar) + EXTENSION).toAbsolutePath();
+				indexFiles.add(index);
+
+				if (!Files.exists(index)) {
+					write(jar, index);
+					written = true;
+				}
+
+				indexes.add(get(index));
+			}
+
+			if (written) {
+				deleteOthers(directory, indexFiles);
+			}
+		}
+
+		return indexes;
+	}
+
+	public static ClassMemberIndex get(Path index) {
+		try {
+			return CACHE.get(index.toAbsolutePath(), () -> open(index));
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	private static ClassMemberIndex open(Path index) {
+		try (FileChannel channel = FileChannel.open(index)) {
+			return new ClassMemberIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read class member index " + index, e);
+		}
+	}
+
+	public boolean hasClass(String name) {
+		return classOffsets.containsKey(name);
+	}
+
+	public boolean hasField(String owner, String name, String descriptor) {
+		final ClassMembers members = getMembers(owner);
+		return members != null && members.fields().contains(memberKey(name, descriptor));
+	}
+
+	public boolean hasMethod(String owner, String name, String descriptor) {
+		final ClassMembers members = getMembers(owner);
+		return members != null && members.methods().contains(memberKey(name, descriptor));
+	}
+
+	@Nullable
+	private ClassMembers getMembers(String owner) {
+		final Integer offset = classOffsets.get(owner);
+
+		if (offset == null) {
+			return null;
+		}
+
+		return classes.computeIfAbsent(owner, n -> readMembers(buffer.duplicate().position(offset)));
+	}
+
+	private static ClassMembers readMembers(ByteBuffer buffer) {
+		return new ClassMembers(readMemberKeys(buffer), readMemberKeys(buffer));
+	}
+
+	private static Set<String> readMemberKeys(ByteBuffer buffer) {
+		final int count = buffer.getInt();
+		final Set<String> keys = new HashSet<>(count);
+
+		for (int i = 0; i < count; i++) {
+			keys.add(memberKey(readString(buffer), readString(buffer)));
+		}
+
+		return keys;
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		final int length = buffer.getInt();
+		final byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes the index of the classes in the given jar.
+	 */
+	public static void write(Path jar, Path output) throws IOException {
+		final ByteArrayOutputStream classData = new ByteArrayOutputStream();
+		final DataOutputStream classOutput = new DataOutputStream(classData);
+		final Map<String, Integer> classOffsets = new HashMap<>();
+
+		try (RawZipFile zipFile = RawZipFile.open(jar)) {
+			for (RawZipFile.Entry entry : zipFile.entries()) {
+				if (!entry.name().endsWith(".class")) {
+					continue;
+				}
+
+				final MemberCollector collector = new MemberCollector();
+				new ClassReader(zipFile.readBytes(entry)).accept(collector, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+
+				classOffsets.put(collector.name, classOutput.size());
+				writeMembers(classOutput, collector.fields);
+				writeMembers(classOutput, collector.methods);
+			}
+		}
+
+		Files.createDirectories(output.getParent());
+		final Path tempFile = Files.createTempFile(output.getParent(), output.getFileName().toString(), ".tmp");
+
+		try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tempFile))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(classOffsets.size());
+
+			for (Map.Entry<String, Integer> entry : classOffsets.entrySet()) {
+				writeString(out, entry.getKey());
+				out.writeInt(entry.getValue());
+			}
+
+			classData.writeTo(out);
+		}
+
+		// Move into place once complete, another build may be reading the index.
+		Files.move(tempFile, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void writeMembers(DataOutputStream out, List<String[]> members) throws IOException {
+		out.writeInt(members.size());
+
+		for (String[] member : members) {
+			writeString(out, member[0]);
+			writeString(out, member[1]);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String str) throws IOException {
+		final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static void deleteOthers(Path directory, Set<Path> indexFiles) {
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : files.map(Path::toAbsolutePath).filter(path -> path.getFileName().toString().endsWith(EXTENSION) && !indexFiles.contains(path)).toList()) {
+				CACHE.invalidate(file);
+				Files.deleteIfExists(file);
+			}
+		} catch (IOException e) {
+			// Another build may still have an old index mapped, it is removed next time.
+			LOGGER.debug("Failed to delete unused class member indexes", e);
+		}
+	}
+
+	private static String memberKey(String name, String descriptor) {
+		return name + ":" + descriptor;
+	}
+
+	private record ClassMembers(Set<String> fields, Set<String> methods) {
+	}
+
+	private static class MemberCollector extends ClassVisitor {
+		private final List<String[]> fields = new ArrayList<>();
+		private final List<String[]> methods = new ArrayList<>();
+		private String name;
+
+		MemberCollector() {
+			super(Constants.ASM_VERSION);
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+			this.name = name;
+		}
+
+		@Override
+		public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+			fields.add(new String[] {name, descriptor});
+			return null;
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+			methods.add(new String[] {name, descriptor});
+			return null;
+		}
+	}
+}
@@ -26,14 +26,18 @@ package net.fabricmc.loom.configuration.accesswidener;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import com.google.common.base.Preconditions;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.FileCollectionDependency;
@@ -49,6 +53,7 @@ import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.RemapConfigurationSettings;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.processors.JarProcessor;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.TinyRemapperHelper;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
@@ -82,7 +87,19 @@ public class TransitiveAccessWidenerJarProcessor implements JarProcessor {
 	public String getId() {
 		Preconditions.checkArgument(!isEmpty());
 
-		return "loom:transitive_access_wideners:" + transitiveAccessWideners.hashCode();
+		// The mod jars are found in no particular order, sort them so that the id only depends on the access wideners.
+		final List<AccessWidenerFile> sorted = transitiveAccessWideners.stream()
+				.sorted(Comparator.comparing(AccessWidenerFile::modId).thenComparing(AccessWidenerFile::path))
+				.toList();
+		final Hasher hasher = Hashing.sha256().newHasher();
+
+		for (AccessWidenerFile accessWidener : sorted) {
+			hasher.putString(accessWidener.modId(), StandardCharsets.UTF_8);
+			hasher.putString(accessWidener.path(), StandardCharsets.UTF_8);
+			hasher.putBytes(accessWidener.content());
+		}
+
+		return "loom:transitive_access_wideners:" + Checksum.toHex(hasher.hash().asBytes());
 	}
 
 	private List<AccessWidenerFile> getTransitiveAccessWideners() {
@@ -170,7 +187,7 @@ public class TransitiveAccessWidenerJarProcessor implements JarProcessor {
 
 			tinyRemapper.readClassPath(TinyRemapperHelper.getMinecraftDependencies(project));
 
-			for (Path minecraftJar : extension.getMinecraftJars(MappingsNamespace.INTERMEDIARY)) {
+			for (Path minecraftJar : extension.getIntermediaryMinecraftProvider().provideMinecraftJars()) {
 				tinyRemapper.readClassPath(minecraftJar);
 			}
 
@@ -24,10 +24,14 @@
 
 package net.fabricmc.loom.configuration.accesswidener;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import org.gradle.api.Project;
 import org.gradle.api.logging.Logger;
+import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.accesswidener.AccessWidenerReader;
 import net.fabricmc.accesswidener.AccessWidenerVisitor;
@@ -35,6 +39,7 @@ import net.fabricmc.accesswidener.TransitiveOnlyFilter;
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.task.GenerateSourcesTask;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.mappingio.tree.MappingTree;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
@@ -61,6 +66,25 @@ public record TransitiveAccessWidenerMappingsProcessor(Project project) implemen
 		return true;
 	}
 
+	@Override
+	@Nullable
+	public String getMappingsId() {
+		final List<AccessWidenerFile> accessWideners = LoomGradleExtension.get(project).getTransitiveAccessWideners();
+
+		if (accessWideners.isEmpty()) {
+			return null;
+		}
+
+		final Hasher hasher = Hashing.sha256().newHasher();
+
+		for (AccessWidenerFile accessWidener : accessWideners) {
+			hasher.putString(accessWidener.modId(), StandardCharsets.UTF_8);
+			hasher.putBytes(accessWidener.content());
+		}
+
+		return "loom:transitive_access_widener:" + Checksum.toHex(hasher.hash().asBytes());
+	}
+
 	private record MappingCommentVisitor(String modId, MemoryMappingTree mappingTree, Logger logger) implements AccessWidenerVisitor {
 		@Override
 		public void visitClass(String name, AccessWidenerReader.AccessType access, boolean transitive) {
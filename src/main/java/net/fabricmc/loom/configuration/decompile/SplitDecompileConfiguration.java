@@ -73,7 +73,7 @@ public final class SplitDecompileConfiguration extends DecompileConfiguration<Ma
 			}
 		});
 
-		final TaskProvider<Task> clientOnlyDecompileTask = createDecompileTasks("ClientOnly", task -> {
+		createDecompileTasks("ClientOnly", task -> {
 			task.getInputJar().set(clientOnlyJar);
 			task.getRuntimeJar().set(minecraftProvider.getClientOnlyJar().toFile());
 
@@ -88,12 +88,19 @@ public final class SplitDecompileConfiguration extends DecompileConfiguration<Ma
 		for (DecompilerOptions options : extension.getDecompilerOptions()) {
 			final String decompilerName = options.getFormattedName();
 
-			project.getTasks().register("genSourcesWith" + decompilerName, task -> {
+			// Decompiles both jars concurrently in a single worker, sharing the mappings and classpath.
+			project.getTasks().register("genSourcesWith" + decompilerName, GenerateSourcesTask.class, options).configure(task -> {
+				task.getInputJar().set(commonJar);
+				task.getRuntimeJar().set(minecraftProvider.getCommonJar().toFile());
+				task.getAdditionalTargets().add(new GenerateSourcesTask.DecompileTarget(clientOnlyJar, minecraftProvider.getClientOnlyJar().toFile()));
+
+				if (unpickCommonJarTask != null) {
+					task.dependsOn(unpickCommonJarTask, unpickClientOnlyJarTask);
+				}
+
+				task.dependsOn(project.getTasks().named("validateAccessWidener"));
 				task.setDescription("Decompile minecraft using %s.".formatted(decompilerName));
 				task.setGroup(Constants.TaskGroup.SPRUCE);
-
-				task.dependsOn(project.getTasks().named("gen%sSourcesWith%s".formatted("Common", decompilerName)));
-				task.dependsOn(project.getTasks().named("gen%sSourcesWith%s".formatted("ClientOnly", decompilerName)));
 			});
 		}
 
@@ -101,8 +108,7 @@ public final class SplitDecompileConfiguration extends DecompileConfiguration<Ma
 			task.setDescription("Decompile minecraft using the default decompiler.");
 			task.setGroup(Constants.TaskGroup.SPRUCE);
 
-			task.dependsOn(commonDecompileTask);
-			task.dependsOn(clientOnlyDecompileTask);
+			task.dependsOn(project.getTasks().named("genSourcesWithCfr"));
 		});
 	}
 
@@ -49,6 +49,7 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import org.gradle.api.Project;
 import org.gradle.api.tasks.SourceSet;
+import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
@@ -250,6 +251,12 @@ public class InterfaceInjectionProcessor implements JarProcessor, GenerateSource
 		return true;
 	}
 
+	@Override
+	@Nullable
+	public String getMappingsId() {
+		return isEmpty() ? null : getId();
+	}
+
 	private static String appendComment(String comment, List<InjectedInterface> injectedInterfaces) {
 		for (InjectedInterface injectedInterface : injectedInterfaces) {
 			String iiComment = "Interface {@link %s} injected by mod %s".formatted(injectedInterface.ifaceName.substring(injectedInterface.ifaceName.lastIndexOf("/") + 1), injectedInterface.modId);
@@ -350,7 +357,7 @@ public class InterfaceInjectionProcessor implements JarProcessor, GenerateSource
 			TinyRemapper tinyRemapper = TinyRemapperHelper.getTinyRemapper(project, "intermediary", "named");
 			tinyRemapper.readClassPath(TinyRemapperHelper.getMinecraftDependencies(project));
 
-			for (Path minecraftJar : extension.getMinecraftJars(MappingsNamespace.INTERMEDIARY)) {
+			for (Path minecraftJar : extension.getIntermediaryMinecraftProvider().provideMinecraftJars()) {
 				tinyRemapper.readClassPath(minecraftJar);
 			}
 
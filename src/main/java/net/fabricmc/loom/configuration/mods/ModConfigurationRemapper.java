@@ -169,6 +169,15 @@ public class ModConfigurationRemapper {
 			final String group = replaceIfNullOrEmpty(dependency.getGroup(), () -> MISSING_GROUP);
 			final FileCollection files = dependency.getFiles();
 
+			if (dependency.getVersion() == null || dependency.getVersion().isEmpty()) {
+				// The files are versioned by their hash, hash them all in parallel first as the hashes are memoized.
+				try {
+					Checksum.sha256Hex(files.getFiles().stream().map(File::toPath).toList());
+				} catch (IOException e) {
+					throw new UncheckedIOException("Failed to hash the files of " + dependency, e);
+				}
+			}
+
 			for (File artifact : files) {
 				final String name = getNameWithoutExtension(artifact.toPath());
 				final String version = replaceIfNullOrEmpty(dependency.getVersion(), () -> Checksum.truncatedSha256(artifact));
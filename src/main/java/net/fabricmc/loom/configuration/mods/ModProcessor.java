@@ -111,7 +111,7 @@ public class ModProcessor {
 
 		final TinyRemapper remapper = builder.build();
 
-		for (Path minecraftJar : extension.getMinecraftJars(MappingsNamespace.INTERMEDIARY)) {
+		for (Path minecraftJar : extension.getIntermediaryMinecraftProvider().provideMinecraftJars()) {
 			remapper.readClassPathAsync(minecraftJar);
 		}
 
@@ -33,6 +33,9 @@ public interface JarProcessor {
 	 * <p>If the jar processor implementation class supports creating multiple jar processors with different effects,
 	 * the needed configuration should also be included in this ID. Example: {@code path.to.MyJarProcessor#someOption}.
 	 *
+	 * <p>Processed jars are shared by every project with the same processor ids, so the ID must change whenever the inputs of the
+	 * processor change, for example by including a hash of the access widener or injected interfaces it applies.
+	 *
 	 * @return the unique ID of this jar processor
 	 */
 	String getId();
@@ -38,6 +38,7 @@ import java.util.jar.Manifest;
 import java.util.stream.Collectors;
 
 import com.google.common.base.Preconditions;
+import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.google.common.io.CharSource;
 
@@ -102,6 +103,20 @@ public class JarProcessorManager {
 		}
 	}
 
+	/**
+	 * Hashes the ids of the processors in the order they are applied, the same input jar processed by chains with the same hash produces the same jar.
+	 */
+	public String getProcessorChainHash() {
+		final Hasher hasher = Hashing.sha256().newHasher();
+
+		for (JarProcessor jarProcessor : jarProcessors) {
+			hasher.putString(jarProcessor.getId(), StandardCharsets.UTF_8);
+			hasher.putByte((byte) 0);
+		}
+
+		return hasher.hash().toString();
+	}
+
 	public void process(File file) {
 		for (JarProcessor jarProcessor : jarProcessors) {
 			jarProcessor.process(file);
@@ -30,11 +30,14 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.gson.JsonObject;
 import org.gradle.api.Project;
 import org.jetbrains.annotations.Nullable;
@@ -45,6 +48,7 @@ import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.RemapConfigurationSettings;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.task.GenerateSourcesTask;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ModUtils;
 import net.fabricmc.loom.util.ZipUtils;
@@ -106,7 +110,19 @@ public final class ModJavadocProcessor implements JarProcessor, GenerateSourcesT
 
 	@Override
 	public String getId() {
-		return "loom:interface_injection:" + javadocs.hashCode();
+		final Hasher hasher = Hashing.sha256().newHasher();
+
+		for (ModJavadoc javadoc : javadocs) {
+			hasher.putString(javadoc.modId(), StandardCharsets.UTF_8);
+			hasher.putString(javadoc.hash(), StandardCharsets.UTF_8);
+		}
+
+		return "loom:mod_javadoc:" + Checksum.toHex(hasher.hash().asBytes());
+	}
+
+	@Override
+	public String getMappingsId() {
+		return getId();
 	}
 
 	@Override
@@ -118,7 +134,7 @@ public final class ModJavadocProcessor implements JarProcessor, GenerateSourcesT
 		// No need to actually process anything, we need to be a JarProcessor to ensure that the jar is cached correctly.
 	}
 
-	public record ModJavadoc(String modId, MemoryMappingTree mappingTree) {
+	public record ModJavadoc(String modId, MemoryMappingTree mappingTree, String hash) {
 		@Nullable
 		public static ModJavadoc fromModJar(Path path) throws IOException {
 			JsonObject jsonObject = ModUtils.getModMetadataJson(path);
@@ -150,7 +166,7 @@ public final class ModJavadocProcessor implements JarProcessor, GenerateSourcesT
 				throw new IllegalStateException("Javadoc provided by mod (%s) must not contain any dst names".formatted(modId));
 			}
 
-			return new ModJavadoc(modId, mappings);
+			return new ModJavadoc(modId, mappings, Hashing.sha256().hashBytes(data).toString());
 		}
 
 		public void apply(MemoryMappingTree target) {
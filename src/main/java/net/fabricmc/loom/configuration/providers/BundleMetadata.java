@@ -26,7 +26,9 @@ package net.fabricmc.loom.configuration.providers;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
@@ -34,12 +36,14 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
 import org.gradle.api.Project;
 import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.util.AttributeHelper;
-import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.loom.util.zip.RawZipFile;
 
 public record BundleMetadata(List<Entry> libraries, List<Entry> versions, String mainClass) {
 	private static final String LIBRARIES_LIST_PATH = "META-INF/libraries.list";
@@ -52,20 +56,35 @@ public record BundleMetadata(List<Entry> libraries, List<Entry> versions, String
 		final List<Entry> versions;
 		final String mainClass;
 
-		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(jar)) {
-			if (!Files.exists(fs.get().getPath(VERSIONS_LIST_PATH))) {
+		// Only the small list files are read, straight from the central directory.
+		try (RawZipFile zipFile = RawZipFile.open(jar)) {
+			if (zipFile.getEntry(VERSIONS_LIST_PATH) == null) {
 				// Legacy jar
 				return null;
 			}
 
-			libraries = readEntries(fs.readString(LIBRARIES_LIST_PATH), "META-INF/libraries/");
-			versions = readEntries(fs.readString(VERSIONS_LIST_PATH), "META-INF/versions/");
-			mainClass = fs.readString(MAINCLASS_PATH).trim();
+			libraries = readEntries(readString(zipFile, LIBRARIES_LIST_PATH), "META-INF/libraries/");
+			versions = readEntries(readString(zipFile, VERSIONS_LIST_PATH), "META-INF/versions/");
+			mainClass = readString(zipFile, MAINCLASS_PATH).trim();
 		}
 
 		return new BundleMetadata(libraries, versions, mainClass);
 	}
 
+	private static String readString(RawZipFile zipFile, String path) throws IOException {
+		return new String(zipFile.readBytes(getEntry(zipFile, path)), StandardCharsets.UTF_8);
+	}
+
+	private static RawZipFile.Entry getEntry(RawZipFile zipFile, String path) throws IOException {
+		final RawZipFile.Entry entry = zipFile.getEntry(path);
+
+		if (entry == null) {
+			throw new NoSuchFileException(path);
+		}
+
+		return entry;
+	}
+
 	private static List<Entry> readEntries(String content, String pathPrefix) {
 		List<Entry> entries = new ArrayList<>();
 
@@ -86,24 +105,46 @@ public record BundleMetadata(List<Entry> libraries, List<Entry> versions, String
 		return Collections.unmodifiableList(entries);
 	}
 
-	public record Entry(String sha1, String name, String path) {
+	/**
+	 * @param sha256 the hash of the nested jar, as listed by the bundler
+	 */
+	public record Entry(String sha256, String name, String path) {
+		/**
+		 * Extracts the nested jar to the destination, verifying its hash while it is copied.
+		 * A destination previously extracted and verified from the same hash is left as is.
+		 */
 		public void unpackEntry(Path jar, Path dest, Project project) throws IOException {
 			final LoomGradleExtension extension = LoomGradleExtension.get(project);
 
 			if (!extension.refreshDeps() && Files.exists(dest)) {
 				final String hash = readHash(dest).orElse("");
 
-				if (hash.equals(sha1)) {
+				if (hash.equals(sha256)) {
 					// File exists with expected hash
 					return;
 				}
 			}
 
-			try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(jar)) {
-				Files.copy(fs.get().getPath(path()), dest, StandardCopyOption.REPLACE_EXISTING);
+			final Path tempFile = dest.resolveSibling(dest.getFileName() + ".tmp");
+
+			try (RawZipFile zipFile = RawZipFile.open(jar)) {
+				final String hash;
+
+				try (HashingInputStream inputStream = new HashingInputStream(Hashing.sha256(), zipFile.openInputStream(getEntry(zipFile, path())))) {
+					Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+					hash = inputStream.hash().toString();
+				}
+
+				if (!hash.equalsIgnoreCase(sha256)) {
+					throw new IOException("Hash mismatch for %s in %s, expected %s but got %s".formatted(path(), jar, sha256, hash));
+				}
+
+				Files.move(tempFile, dest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(tempFile);
 			}
 
-			writeHash(dest, sha1);
+			writeHash(dest, sha256);
 		}
 
 		private Optional<String> readHash(Path output) {
@@ -42,6 +42,7 @@ import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.intermediate.IntermediateMappingsProvider;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
+import net.fabricmc.loom.util.ArtifactLock;
 import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 import net.fabricmc.mappingio.adapter.MappingNsCompleter;
@@ -56,7 +57,7 @@ public final class IntermediateMappingsService implements SharedService {
 		this.intermediaryTiny = intermediaryTiny;
 	}
 
-	public static synchronized IntermediateMappingsService getInstance(Project project, MinecraftProvider minecraftProvider) {
+	public static IntermediateMappingsService getInstance(Project project, MinecraftProvider minecraftProvider) {
 		final LoomGradleExtension extension = LoomGradleExtension.get(project);
 		final IntermediateMappingsProvider intermediateProvider = extension.getIntermediateMappingsProvider();
 		final String id = "IntermediateMappingsService:%s:%s".formatted(intermediateProvider.getName(), intermediateProvider.getMinecraftVersion().get());
@@ -68,15 +69,20 @@ public final class IntermediateMappingsService implements SharedService {
 	public static IntermediateMappingsService create(IntermediateMappingsProvider intermediateMappingsProvider, MinecraftProvider minecraftProvider) {
 		final Path intermediaryTiny = minecraftProvider.file(intermediateMappingsProvider.getName() + ".tiny").toPath();
 
-		try {
-			intermediateMappingsProvider.provide(intermediaryTiny);
-		} catch (IOException e) {
+		try (ArtifactLock ignored = ArtifactLock.acquire(ArtifactLock.lockFileFor(intermediaryTiny))) {
 			try {
-				Files.deleteIfExists(intermediaryTiny);
-			} catch (IOException ex) {
-				ex.printStackTrace();
+				intermediateMappingsProvider.provide(intermediaryTiny);
+			} catch (IOException e) {
+				// Deleted while still holding the lock, so another process never sees the partial file
+				try {
+					Files.deleteIfExists(intermediaryTiny);
+				} catch (IOException ex) {
+					ex.printStackTrace();
+				}
+
+				throw e;
 			}
-
+		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to provide intermediate mappings", e);
 		}
 
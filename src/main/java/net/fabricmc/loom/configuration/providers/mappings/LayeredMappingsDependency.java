@@ -48,6 +48,7 @@ import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.api.mappings.layered.MappingContext;
 import net.fabricmc.loom.api.mappings.layered.MappingLayer;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.configuration.providers.mappings.extras.unpick.UnpickConstantJars;
 import net.fabricmc.loom.configuration.providers.mappings.extras.unpick.UnpickLayer;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.mappingio.adapter.MappingDstNsReorder;
@@ -58,6 +59,7 @@ import net.fabricmc.mappingio.tree.MemoryMappingTree;
 public class LayeredMappingsDependency implements SelfResolvingDependency, FileCollectionDependency {
 	private static final String GROUP = "loom";
 	private static final String MODULE = "mappings";
+	private static final String UNPICK_DEFINITIONS_PATH = "extras/definitions.unpick";
 
 	private final Project project;
 	private final MappingContext mappingContext;
@@ -73,19 +75,21 @@ public class LayeredMappingsDependency implements SelfResolvingDependency, FileC
 
 	@Override
 	public Set<File> resolve() {
-		Path mappingsDir = mappingContext.minecraftProvider().dir("layered").toPath();
-		Path mappingsFile = mappingsDir.resolve(String.format("%s.%s-%s.tiny", GROUP, MODULE, getVersion()));
+		Path mappingsFile = getMappingsFile();
+		Path constantsJar = getUnpickConstantsJar();
 
-		if (!Files.exists(mappingsFile) || mappingContext.refreshDeps()) {
+		// Mappings written by an older version may have unpick definitions without their constants.
+		if (!Files.exists(mappingsFile) || mappingContext.refreshDeps() || (ZipUtils.contains(mappingsFile, UNPICK_DEFINITIONS_PATH) && !Files.exists(constantsJar))) {
 			try {
 				var processor = new LayeredMappingsProcessor(layeredMappingSpec);
 				List<MappingLayer> layers = processor.resolveLayers(mappingContext);
 
 				Files.deleteIfExists(mappingsFile);
+				Files.deleteIfExists(constantsJar);
 
 				writeMapping(processor, layers, mappingsFile);
 				writeSignatureFixes(processor, layers, mappingsFile);
-				writeUnpickData(processor, layers, mappingsFile);
+				writeUnpickData(processor, layers, mappingsFile, constantsJar);
 			} catch (IOException e) {
 				throw new RuntimeException("Failed to resolve layered mappings", e);
 			}
@@ -94,6 +98,17 @@ public class LayeredMappingsDependency implements SelfResolvingDependency, FileC
 		return Collections.singleton(mappingsFile.toFile());
 	}
 
+	private Path getMappingsFile() {
+		return mappingContext.minecraftProvider().dir("layered").toPath().resolve(String.format("%s.%s-%s.tiny", GROUP, MODULE, getVersion()));
+	}
+
+	/**
+	 * The constants of the unpick definitions of every layer, combined in a single jar next to the mappings.
+	 */
+	public Path getUnpickConstantsJar() {
+		return mappingContext.minecraftProvider().dir("layered").toPath().resolve(String.format("%s.%s-%s-constants.jar", GROUP, MODULE, getVersion()));
+	}
+
 	private void writeMapping(LayeredMappingsProcessor processor, List<MappingLayer> layers, Path mappingsFile) throws IOException {
 		MemoryMappingTree mappings = processor.getMappings(layers);
 
@@ -121,14 +136,15 @@ public class LayeredMappingsDependency implements SelfResolvingDependency, FileC
 		ZipUtils.add(mappingsFile, "extras/record_signatures.json", data);
 	}
 
-	private void writeUnpickData(LayeredMappingsProcessor processor, List<MappingLayer> layers, Path mappingsFile) throws IOException {
+	private void writeUnpickData(LayeredMappingsProcessor processor, List<MappingLayer> layers, Path mappingsFile, Path constantsJar) throws IOException {
 		UnpickLayer.UnpickData unpickData = processor.getUnpickData(layers);
 
 		if (unpickData == null) {
 			return;
 		}
 
-		ZipUtils.add(mappingsFile, "extras/definitions.unpick", unpickData.definitions());
+		UnpickConstantJars.combine(processor.getUnpickConstants(layers), constantsJar);
+		ZipUtils.add(mappingsFile, UNPICK_DEFINITIONS_PATH, unpickData.definitions());
 		ZipUtils.add(mappingsFile, "extras/unpick.json", unpickData.metadata().asJson());
 	}
 
@@ -25,6 +25,7 @@
 package net.fabricmc.loom.configuration.providers.mappings;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -39,6 +40,7 @@ import net.fabricmc.loom.api.mappings.layered.MappingLayer;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.api.mappings.layered.spec.MappingsSpec;
 import net.fabricmc.loom.configuration.providers.mappings.extras.signatures.SignatureFixesLayer;
+import net.fabricmc.loom.configuration.providers.mappings.extras.unpick.UnpickDefinitions;
 import net.fabricmc.loom.configuration.providers.mappings.extras.unpick.UnpickLayer;
 import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
@@ -141,11 +143,50 @@ public class LayeredMappingsProcessor {
 			return null;
 		}
 
-		if (unpickDataList.size() != 1) {
-			// TODO merge
-			throw new UnsupportedOperationException("Only one unpick layer is currently supported.");
+		if (unpickDataList.size() == 1) {
+			return unpickDataList.get(0);
 		}
 
-		return unpickDataList.get(0);
+		// The definitions are merged into a single file, so unpick still makes a single pass over the jar.
+		final UnpickLayer.UnpickData.Metadata metadata = unpickDataList.get(0).metadata();
+
+		for (UnpickLayer.UnpickData data : unpickDataList) {
+			if (data.metadata().version() != metadata.version()) {
+				throw new UnsupportedOperationException("Cannot merge unpick layers with different metadata versions (%d and %d)".formatted(metadata.version(), data.metadata().version()));
+			}
+
+			if (!data.metadata().unpickGroup().equals(metadata.unpickGroup()) || !data.metadata().unpickVersion().equals(metadata.unpickVersion())) {
+				throw new UnsupportedOperationException("Cannot merge unpick layers using different versions of unpick (%s:%s and %s:%s)".formatted(
+						metadata.unpickGroup(), metadata.unpickVersion(), data.metadata().unpickGroup(), data.metadata().unpickVersion()));
+			}
+		}
+
+		final UnpickDefinitions definitions = UnpickDefinitions.merge(unpickDataList.stream()
+				.map(data -> UnpickDefinitions.read(data.definitions()))
+				.toList());
+
+		return new UnpickLayer.UnpickData(metadata, definitions.write());
+	}
+
+	/**
+	 * @return the constant jars of every layer with unpick definitions, in the order of the layers
+	 * @throws UnsupportedOperationException when a layer with unpick definitions does not provide its constants
+	 */
+	public List<Path> getUnpickConstants(List<MappingLayer> layers) throws IOException {
+		List<Path> constantJars = new ArrayList<>();
+
+		for (MappingLayer layer : layers) {
+			if (layer instanceof UnpickLayer unpickLayer && unpickLayer.getUnpickData() != null) {
+				Path constants = unpickLayer.getUnpickConstants();
+
+				if (constants == null) {
+					throw new UnsupportedOperationException("The unpick constants of %s are unknown, unpick layers must be resolved from a maven repository".formatted(layer.getClass().getSimpleName()));
+				}
+
+				constantJars.add(constants);
+			}
+		}
+
+		return constantJars;
 	}
 }
@@ -54,6 +54,7 @@ import net.fabricmc.loom.configuration.DependencyInfo;
 import net.fabricmc.loom.configuration.providers.mappings.tiny.MappingsMerger;
 import net.fabricmc.loom.configuration.providers.mappings.tiny.TinyJarInfo;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
+import net.fabricmc.loom.util.ArtifactLock;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.DeletingFileVisitor;
 import net.fabricmc.loom.util.FileSystemUtil;
@@ -98,7 +99,7 @@ public class MappingsProviderImpl implements MappingsProvider, SharedService {
 		this.intermediaryService = intermediaryService;
 	}
 
-	public static synchronized MappingsProviderImpl getInstance(Project project, DependencyInfo dependency, MinecraftProvider minecraftProvider) {
+	public static MappingsProviderImpl getInstance(Project project, DependencyInfo dependency, MinecraftProvider minecraftProvider) {
 		return SharedServiceManager.get(project).getOrCreateService("MappingsProvider:%s:%s".formatted(dependency.getDepString(), minecraftProvider.minecraftVersion()), () -> {
 			Supplier<IntermediateMappingsService> intermediaryService = Suppliers.memoize(() -> IntermediateMappingsService.getInstance(project, minecraftProvider));
 			return create(dependency, minecraftProvider, intermediaryService);
@@ -126,10 +127,14 @@ public class MappingsProviderImpl implements MappingsProvider, SharedService {
 
 		var mappingProvider = new MappingsProviderImpl(mappingsIdentifier, workingDir, intermediaryService);
 
-		try {
-			mappingProvider.setup(minecraftProvider, inputJar);
+		try (ArtifactLock ignored = ArtifactLock.acquire(ArtifactLock.lockFileFor(workingDir))) {
+			try {
+				mappingProvider.setup(minecraftProvider, inputJar);
+			} catch (IOException e) {
+				cleanWorkingDirectory(workingDir);
+				throw e;
+			}
 		} catch (IOException e) {
-			cleanWorkingDirectory(workingDir);
 			throw new UncheckedIOException("Failed to setup mappings: " + dependency.getDepString(), e);
 		}
 
@@ -159,13 +164,19 @@ public class MappingsProviderImpl implements MappingsProvider, SharedService {
 
 	public void applyToProject(Project project, DependencyInfo dependency) {
 		if (hasUnpickDefinitions()) {
-			String notation = String.format("%s:%s:%s:constants",
-					dependency.getDependency().getGroup(),
-					dependency.getDependency().getName(),
-					dependency.getDependency().getVersion()
-			);
+			if (dependency.getDependency() instanceof LayeredMappingsDependency layeredMappingsDependency) {
+				// Layered mappings are not published, the constants of their layers are combined next to the mappings.
+				project.getDependencies().add(Constants.Configurations.MAPPING_CONSTANTS, project.files(layeredMappingsDependency.getUnpickConstantsJar().toFile()));
+			} else {
+				String notation = String.format("%s:%s:%s:constants",
+						dependency.getDependency().getGroup(),
+						dependency.getDependency().getName(),
+						dependency.getDependency().getVersion()
+				);
+
+				project.getDependencies().add(Constants.Configurations.MAPPING_CONSTANTS, notation);
+			}
 
-			project.getDependencies().add(Constants.Configurations.MAPPING_CONSTANTS, notation);
 			populateUnpickClasspath(project);
 		}
 
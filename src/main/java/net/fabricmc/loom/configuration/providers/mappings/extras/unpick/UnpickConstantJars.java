@@ -0,0 +1,60 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.mappings.extras.unpick;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.fabricmc.loom.util.zip.RawZipFile;
+import net.fabricmc.loom.util.zip.RawZipWriter;
+
+public final class UnpickConstantJars {
+	private UnpickConstantJars() {
+	}
+
+	/**
+	 * Combines the constant jars of several unpick definitions, so that the definitions are applied in a single pass.
+	 *
+	 * <p>Only the class files are kept, the first jar providing a class wins as on the classpath.
+	 */
+	public static void combine(List<Path> constantJars, Path output) throws IOException {
+		final Set<String> written = new HashSet<>();
+
+		try (RawZipWriter writer = new RawZipWriter(output)) {
+			for (Path constantJar : constantJars) {
+				try (RawZipFile zipFile = RawZipFile.open(constantJar)) {
+					for (RawZipFile.Entry entry : zipFile.entries()) {
+						if (entry.name().endsWith(".class") && written.add(entry.name())) {
+							writer.copyEntry(zipFile, entry);
+						}
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.mappings.extras.unpick;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Unpick v2 definitions, as constant groups and target methods, that can be merged from several layers.
+ *
+ * <p>Constants and target methods keep the order in which they were first defined, so merging the same layers always gives the same file.
+ */
+public final class UnpickDefinitions {
+	private static final String HEADER = "v2";
+
+	// The constant and flag lines by group, owner and field name.
+	private final Map<List<String>, String> constants = new LinkedHashMap<>();
+	// Whether each group holds constants or flags.
+	private final Map<String, String> groupKinds = new HashMap<>();
+	private final Map<List<String>, Target> targets = new LinkedHashMap<>();
+
+	private UnpickDefinitions() {
+	}
+
+	public static UnpickDefinitions read(byte[] definitions) {
+		final UnpickDefinitions result = new UnpickDefinitions();
+
+		try (BufferedReader reader = new BufferedReader(new StringReader(new String(definitions, StandardCharsets.UTF_8)))) {
+			final String header = reader.readLine();
+
+			if (header == null || !header.trim().equals(HEADER)) {
+				throw new UnsupportedOperationException("Only v2 unpick definitions can be merged");
+			}
+
+			Target target = null;
+			String line;
+			int lineNumber = 1;
+
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+
+				final int comment = line.indexOf('#');
+				final String content = (comment >= 0 ? line.substring(0, comment) : line).trim();
+
+				if (content.isEmpty()) {
+					continue;
+				}
+
+				final String[] tokens = content.split("\\s+");
+
+				switch (tokens[0]) {
+				case "constant", "flag" -> {
+					if (tokens.length < 4) {
+						throw invalidLine(lineNumber, line);
+					}
+
+					result.addConstant(tokens[0], tokens[1], tokens[2], tokens[3], String.join(" ", tokens));
+					target = null;
+				}
+				case "target_method" -> {
+					if (tokens.length != 4) {
+						throw invalidLine(lineNumber, line);
+					}
+
+					target = result.targets.computeIfAbsent(List.of(tokens[1], tokens[2], tokens[3]), key -> new Target(String.join(" ", tokens)));
+				}
+				case "param" -> {
+					if (target == null || tokens.length != 3) {
+						throw invalidLine(lineNumber, line);
+					}
+
+					target.setParam(Integer.parseInt(tokens[1]), tokens[2]);
+				}
+				case "return" -> {
+					if (target == null || tokens.length != 2) {
+						throw invalidLine(lineNumber, line);
+					}
+
+					target.setReturn(tokens[1]);
+				}
+				default -> throw invalidLine(lineNumber, line);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid unpick parameter index", e);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Merges the definitions of all the layers, in order.
+	 *
+	 * @throws IllegalStateException when two layers give a different group to the same target, or define the same constant differently
+	 */
+	public static UnpickDefinitions merge(List<UnpickDefinitions> layers) {
+		final UnpickDefinitions result = new UnpickDefinitions();
+
+		for (UnpickDefinitions layer : layers) {
+			layer.constants.forEach((key, line) -> result.addConstant(layer.groupKinds.get(key.get(0)), key.get(0), key.get(1), key.get(2), line));
+
+			layer.targets.forEach((key, target) -> {
+				final Target merged = result.targets.computeIfAbsent(key, k -> new Target(target.declaration));
+				target.params.forEach(merged::setParam);
+
+				if (target.returnGroup != null) {
+					merged.setReturn(target.returnGroup);
+				}
+			});
+		}
+
+		return result;
+	}
+
+	public byte[] write() {
+		final StringBuilder builder = new StringBuilder(HEADER).append('\n');
+
+		for (String line : constants.values()) {
+			builder.append(line).append('\n');
+		}
+
+		for (Target target : targets.values()) {
+			builder.append(target.declaration).append('\n');
+
+			target.params.forEach((index, group) -> builder.append("\tparam ").append(index).append(' ').append(group).append('\n'));
+
+			if (target.returnGroup != null) {
+				builder.append("\treturn ").append(target.returnGroup).append('\n');
+			}
+		}
+
+		return builder.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private void addConstant(String kind, String group, String owner, String name, String line) {
+		final String existingKind = groupKinds.putIfAbsent(group, kind);
+
+		if (existingKind != null && !existingKind.equals(kind)) {
+			throw new IllegalStateException("Unpick group %s is defined as both %s and %s".formatted(group, existingKind, kind));
+		}
+
+		final String existing = constants.putIfAbsent(List.of(group, owner, name), line);
+
+		if (existing != null && !existing.equals(line)) {
+			throw new IllegalStateException("Conflicting unpick definitions of %s.%s in group %s: '%s' and '%s'".formatted(owner, name, group, existing, line));
+		}
+	}
+
+	private static IllegalArgumentException invalidLine(int lineNumber, String line) {
+		return new IllegalArgumentException("Invalid unpick definition on line %d: %s".formatted(lineNumber, line));
+	}
+
+	private static final class Target {
+		private final String declaration;
+		private final Map<Integer, String> params = new LinkedHashMap<>();
+		@Nullable
+		private String returnGroup;
+
+		private Target(String declaration) {
+			this.declaration = declaration;
+		}
+
+		private void setParam(int index, String group) {
+			final String existing = params.putIfAbsent(index, group);
+
+			if (existing != null && !existing.equals(group)) {
+				throw new IllegalStateException("Conflicting unpick groups for parameter %d of %s: %s and %s".formatted(index, declaration, existing, group));
+			}
+		}
+
+		private void setReturn(String group) {
+			if (returnGroup != null && !returnGroup.equals(group)) {
+				throw new IllegalStateException("Conflicting unpick groups for the return value of %s: %s and %s".formatted(declaration, returnGroup, group));
+			}
+
+			returnGroup = group;
+		}
+	}
+}
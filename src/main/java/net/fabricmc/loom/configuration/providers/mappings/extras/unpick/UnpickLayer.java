@@ -40,6 +40,14 @@ public interface UnpickLayer {
 	@Nullable
 	UnpickData getUnpickData() throws IOException;
 
+	/**
+	 * @return the jar declaring the constants of the unpick definitions, or null when it is not known
+	 */
+	@Nullable
+	default Path getUnpickConstants() throws IOException {
+		return null;
+	}
+
 	record UnpickData(Metadata metadata, byte[] definitions) {
 		public static UnpickData read(Path metadataPath, Path definitionPath) throws IOException {
 			final byte[] definitions = Files.readAllBytes(definitionPath);
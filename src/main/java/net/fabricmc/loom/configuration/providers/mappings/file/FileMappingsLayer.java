@@ -29,6 +29,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import org.jetbrains.annotations.Nullable;
 
@@ -50,7 +51,8 @@ public record FileMappingsLayer(
 		String fallbackSourceNamespace, String fallbackTargetNamespace,
 		boolean enigma, // Enigma cannot be automatically detected since it's stored in a directory.
 		boolean unpick,
-		String mergeNamespace
+		String mergeNamespace,
+		@Nullable Supplier<Path> unpickConstants
 ) implements MappingLayer, UnpickLayer {
 	private static final String UNPICK_METADATA_PATH = "extras/unpick.json";
 	private static final String UNPICK_DEFINITIONS_PATH = "extras/definitions.unpick";
@@ -113,4 +115,9 @@ public record FileMappingsLayer(
 			return UnpickData.read(unpickMetadata, unpickDefinitions);
 		}
 	}
+
+	@Override
+	public @Nullable Path getUnpickConstants() {
+		return unpickConstants != null ? unpickConstants.get() : null;
+	}
 }
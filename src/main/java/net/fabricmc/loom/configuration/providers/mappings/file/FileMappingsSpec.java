@@ -24,9 +24,19 @@
 
 package net.fabricmc.loom.configuration.providers.mappings.file;
 
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+import com.google.common.base.Suppliers;
+import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.artifacts.SelfResolvingDependency;
+import org.jetbrains.annotations.Nullable;
+
 import net.fabricmc.loom.api.mappings.layered.MappingContext;
 import net.fabricmc.loom.api.mappings.layered.spec.FileSpec;
 import net.fabricmc.loom.api.mappings.layered.spec.MappingsSpec;
+import net.fabricmc.loom.configuration.providers.mappings.utils.DependencyFileSpec;
+import net.fabricmc.loom.configuration.providers.mappings.utils.MavenFileSpec;
 
 public record FileMappingsSpec(
 		FileSpec fileSpec, String mappingPath,
@@ -36,6 +46,37 @@ public record FileMappingsSpec(
 ) implements MappingsSpec<FileMappingsLayer> {
 	@Override
 	public FileMappingsLayer createLayer(MappingContext context) {
-		return new FileMappingsLayer(fileSpec.get(context), mappingPath, fallbackSourceNamespace, fallbackTargetNamespace, enigma, unpick, mergeNamespace);
+		return new FileMappingsLayer(fileSpec.get(context), mappingPath, fallbackSourceNamespace, fallbackTargetNamespace, enigma, unpick, mergeNamespace, getUnpickConstants(context));
+	}
+
+	/**
+	 * Mappings from a maven repository publish the constants of their unpick definitions with the {@code constants} classifier,
+	 * these are only resolved when the mappings contain unpick definitions.
+	 */
+	@Nullable
+	private Supplier<Path> getUnpickConstants(MappingContext context) {
+		if (!unpick) {
+			return null;
+		}
+
+		final String notation;
+
+		if (fileSpec instanceof MavenFileSpec mavenFileSpec) {
+			final String[] parts = mavenFileSpec.dependencyNotation().split(":");
+
+			if (parts.length < 3) {
+				return null;
+			}
+
+			// Drops the classifier and the extension of the mappings.
+			notation = "%s:%s:%s".formatted(parts[0], parts[1], parts[2].split("@")[0]);
+		} else if (fileSpec instanceof DependencyFileSpec dependencyFileSpec && !(dependencyFileSpec.dependency() instanceof SelfResolvingDependency)) {
+			final Dependency dependency = dependencyFileSpec.dependency();
+			notation = "%s:%s:%s".formatted(dependency.getGroup(), dependency.getName(), dependency.getVersion());
+		} else {
+			return null;
+		}
+
+		return Suppliers.memoize(() -> context.resolveMavenDependency(notation + ":constants"));
 	}
 }
@@ -0,0 +1,280 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.minecraft;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+
+import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.zip.RawZipFile;
+import net.fabricmc.loom.util.zip.RawZipWriter;
+import net.fabricmc.stitch.merge.ClassMerger;
+import net.fabricmc.stitch.util.SyntheticParameterClassVisitor;
+
+/**
+ * Merges the client and server jars, producing the same classes and {@code @Environment} annotations as stitch's {@code JarMerger}.
+ *
+ * <p>Entries are compared using the central directories first, classes identical on both sides are copied without being recompressed.
+ * Only the classes that differ, or are only present on one side, are parsed; this is done on a fork join pool while the output is written in order.
+ */
+public final class MinecraftJarMerger implements AutoCloseable {
+	private static final String MANIFEST = "META-INF/MANIFEST.MF";
+	private static final byte[] MANIFEST_CONTENT = "Manifest-Version: 1.0\nMain-Class: net.minecraft.client.Main\n".getBytes(StandardCharsets.UTF_8);
+	// Limits the number of processed entries held in memory while waiting to be written.
+	private static final int MAX_PENDING_ENTRIES = 512;
+	private static final ClassMerger CLASS_MERGER = new ClassMerger();
+
+	private final RawZipFile client;
+	private final RawZipFile server;
+	private final Path output;
+	private boolean offsetSyntheticParams = false;
+
+	public MinecraftJarMerger(Path clientJar, Path serverJar, Path output) throws IOException {
+		this.client = RawZipFile.open(clientJar);
+
+		try {
+			this.server = RawZipFile.open(serverJar);
+		} catch (IOException e) {
+			client.close();
+			throw e;
+		}
+
+		this.output = output;
+	}
+
+	public void enableSyntheticParamsOffset() {
+		offsetSyntheticParams = true;
+	}
+
+	public void merge() throws IOException {
+		final Set<String> names = new TreeSet<>();
+		addEntryNames(client, names);
+		addEntryNames(server, names);
+
+		// Written next to the output and moved into place once complete, so that a failed merge never leaves a truncated jar.
+		final Path tempOutput = output.resolveSibling(output.getFileName() + ".tmp");
+		Files.deleteIfExists(tempOutput);
+
+		final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		final Deque<ForkJoinTask<MergedEntry>> pending = new ArrayDeque<>();
+		boolean complete = false;
+
+		try (RawZipWriter writer = new RawZipWriter(tempOutput)) {
+			final Set<String> directories = new HashSet<>();
+
+			for (String name : names) {
+				pending.add(pool.submit(() -> mergeEntry(name)));
+
+				if (pending.size() >= MAX_PENDING_ENTRIES) {
+					write(writer, pending.removeFirst(), directories);
+				}
+			}
+
+			while (!pending.isEmpty()) {
+				write(writer, pending.removeFirst(), directories);
+			}
+
+			complete = true;
+		} finally {
+			pool.shutdownNow();
+
+			if (!complete) {
+				Files.deleteIfExists(tempOutput);
+			}
+		}
+
+		Files.move(tempOutput, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void addEntryNames(RawZipFile jar, Set<String> names) {
+		for (RawZipFile.Entry entry : jar.entries()) {
+			final String name = entry.name();
+
+			if (entry.isDirectory()) {
+				continue;
+			}
+
+			if (name.startsWith("META-INF/") && (name.endsWith(".SF") || name.endsWith(".RSA"))) {
+				continue;
+			}
+
+			names.add(name);
+		}
+	}
+
+	private void write(RawZipWriter writer, ForkJoinTask<MergedEntry> task, Set<String> directories) throws IOException {
+		final MergedEntry entry;
+
+		try {
+			entry = task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while merging jars", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof UncheckedIOException uncheckedIOException) {
+				throw uncheckedIOException.getCause();
+			}
+
+			throw new IOException("Failed to merge jars", e.getCause());
+		}
+
+		if (entry == null) {
+			return;
+		}
+
+		final String name = entry.source().name();
+		int index = 0;
+
+		while ((index = name.indexOf('/', index) + 1) > 0) {
+			final String directory = name.substring(0, index);
+
+			if (directories.add(directory)) {
+				writer.putDirectory(directory);
+			}
+		}
+
+		if (entry.data() != null) {
+			writer.putEntry(name, entry.data(), entry.source().dosTime());
+		} else {
+			writer.copyEntry(entry.sourceJar(), entry.source());
+		}
+	}
+
+	@Nullable
+	private MergedEntry mergeEntry(String name) {
+		try {
+			return doMergeEntry(name);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to merge " + name, e);
+		}
+	}
+
+	@Nullable
+	private MergedEntry doMergeEntry(String name) throws IOException {
+		final RawZipFile.Entry clientEntry = client.getEntry(name);
+		final RawZipFile.Entry serverEntry = server.getEntry(name);
+
+		if (name.equals(MANIFEST)) {
+			final RawZipFile.Entry source = clientEntry != null ? clientEntry : serverEntry;
+			return new MergedEntry(client, source, RawZipWriter.compress(MANIFEST_CONTENT));
+		}
+
+		if (!name.endsWith(".class")) {
+			// Non class files are taken from the client when present on both sides.
+			return clientEntry != null ? new MergedEntry(client, clientEntry, null) : new MergedEntry(server, serverEntry, null);
+		}
+
+		final boolean isMinecraft = clientEntry != null || name.startsWith("net/minecraft") || !name.contains("/");
+
+		if (clientEntry != null && serverEntry != null) {
+			final byte[] clientData = client.readBytes(clientEntry);
+
+			if (isSameData(clientEntry, serverEntry, clientData)) {
+				// The synthetic parameter offset rewrites the identical Minecraft classes too, as stitch does.
+				if (!isMinecraft || !offsetSyntheticParams) {
+					return new MergedEntry(client, clientEntry, null);
+				}
+
+				return processed(client, clientEntry, clientData, null);
+			}
+
+			final byte[] merged = CLASS_MERGER.merge(clientData, server.readBytes(serverEntry));
+			return isMinecraft ? processed(client, clientEntry, merged, null) : new MergedEntry(client, clientEntry, RawZipWriter.compress(merged));
+		}
+
+		if (clientEntry != null) {
+			return processed(client, clientEntry, client.readBytes(clientEntry), "CLIENT");
+		}
+
+		if (!isMinecraft) {
+			// Server bundles libraries, client doesn't - skip them
+			return null;
+		}
+
+		return processed(server, serverEntry, server.readBytes(serverEntry), "SERVER");
+	}
+
+	private boolean isSameData(RawZipFile.Entry clientEntry, RawZipFile.Entry serverEntry, byte[] clientData) throws IOException {
+		if (clientEntry.crc() != serverEntry.crc() || clientEntry.size() != serverEntry.size()) {
+			return false;
+		}
+
+		return Arrays.equals(clientData, server.readBytes(serverEntry));
+	}
+
+	private MergedEntry processed(RawZipFile sourceJar, RawZipFile.Entry source, byte[] data, @Nullable String side) {
+		ClassReader reader = new ClassReader(data);
+		ClassWriter writer = new ClassWriter(0);
+		ClassVisitor visitor = writer;
+
+		if (side != null) {
+			visitor = new ClassMerger.SidedClassVisitor(Constants.ASM_VERSION, visitor, side);
+		}
+
+		if (offsetSyntheticParams) {
+			visitor = new SyntheticParameterClassVisitor(Constants.ASM_VERSION, visitor);
+		}
+
+		if (visitor != writer) {
+			reader.accept(visitor, 0);
+			data = writer.toByteArray();
+		}
+
+		return new MergedEntry(sourceJar, source, RawZipWriter.compress(data));
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			client.close();
+		} finally {
+			server.close();
+		}
+	}
+
+	/**
+	 * An entry of the merged jar, copied from the source entry when there is no new data.
+	 */
+	private record MergedEntry(RawZipFile sourceJar, RawZipFile.Entry source, @Nullable RawZipWriter.CompressedData data) {
+	}
+}
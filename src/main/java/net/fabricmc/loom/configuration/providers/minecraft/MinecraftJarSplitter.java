@@ -28,20 +28,29 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.Attributes;
+import java.util.jar.JarFile;
 import java.util.jar.Manifest;
-import java.util.stream.Stream;
+import java.util.zip.ZipException;
 
 import com.google.common.collect.Sets;
 
 import net.fabricmc.loom.configuration.mods.JarSplitter;
-import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.loom.util.zip.RawZipFile;
+import net.fabricmc.loom.util.zip.RawZipWriter;
 
+/**
+ * Splits the client and server jars into a common jar and a client only jar.
+ *
+ * <p>The entries are computed from the central directories alone, and copied to both output jars concurrently without being recompressed.
+ */
 public class MinecraftJarSplitter implements AutoCloseable {
 	private final Path clientInputJar;
 	private final Path serverInputJar;
@@ -59,15 +68,42 @@ public class MinecraftJarSplitter implements AutoCloseable {
 		Objects.requireNonNull(clientOnlyOutputJar);
 		Objects.requireNonNull(commonOutputJar);
 
-		if (entryData == null) {
-			entryData = new EntryData(getJarEntries(clientInputJar), getJarEntries(serverInputJar));
-		}
+		try (RawZipFile clientJar = RawZipFile.open(clientInputJar);
+				RawZipFile serverJar = RawZipFile.open(serverInputJar)) {
+			if (entryData == null) {
+				entryData = new EntryData(getJarEntries(clientJar), getJarEntries(serverJar));
+			}
 
-		// Not something we expect, will require 3 jars, server, client and common.
-		assert entryData.serverOnlyEntries.isEmpty();
+			// Not something we expect, will require 3 jars, server, client and common.
+			assert entryData.serverOnlyEntries.isEmpty();
+
+			final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+			try {
+				final Future<?> common = executor.submit(() -> {
+					copyEntriesToJar(entryData.commonEntries, serverJar, commonOutputJar, "common");
+					return null;
+				});
+				final Future<?> client = executor.submit(() -> {
+					copyEntriesToJar(entryData.clientOnlyEntries, clientJar, clientOnlyOutputJar, "client");
+					return null;
+				});
+
+				common.get();
+				client.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while splitting jars", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException ioException) {
+					throw ioException;
+				}
 
-		copyEntriesToJar(entryData.commonEntries, serverInputJar, commonOutputJar, "common");
-		copyEntriesToJar(entryData.clientOnlyEntries, clientInputJar, clientOnlyOutputJar, "client");
+				throw new IOException("Failed to split jars", e.getCause());
+			} finally {
+				executor.shutdownNow();
+			}
+		}
 	}
 
 	public void sharedEntry(String path) {
@@ -78,65 +114,65 @@ public class MinecraftJarSplitter implements AutoCloseable {
 		this.forcedClientEntries.add(path);
 	}
 
-	private Set<String> getJarEntries(Path input) throws IOException {
+	private Set<String> getJarEntries(RawZipFile input) {
 		Set<String> entries = Sets.newHashSet();
 
-		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(input);
-				Stream<Path> walk = Files.walk(fs.get().getPath("/"))) {
-			Iterator<Path> iterator = walk.iterator();
+		for (RawZipFile.Entry entry : input.entries()) {
+			if (entry.isDirectory() || entry.name().startsWith("META-INF/")) {
+				continue;
+			}
 
-			while (iterator.hasNext()) {
-				Path fsPath = iterator.next();
+			entries.add(entry.name());
+		}
 
-				if (!Files.isRegularFile(fsPath)) {
-					continue;
-				}
+		return entries;
+	}
+
+	private void copyEntriesToJar(Set<String> entries, RawZipFile inputJar, Path outputJar, String env) throws IOException {
+		Files.deleteIfExists(outputJar);
 
-				String entryPath = fs.get().getPath("/").relativize(fsPath).toString();
+		final Set<String> directories = new HashSet<>();
+		final Set<String> remaining = new HashSet<>(entries);
 
-				if (entryPath.startsWith("META-INF/")) {
+		try (RawZipWriter writer = new RawZipWriter(outputJar)) {
+			writeManifest(writer, env);
+
+			// Follow the order of the input jar, which keeps the entries of a package together.
+			for (RawZipFile.Entry entry : inputJar.entries()) {
+				if (!remaining.remove(entry.name())) {
 					continue;
 				}
 
-				entries.add(entryPath);
+				writeParentDirectories(writer, entry.name(), directories);
+				writer.copyEntry(inputJar, entry);
 			}
 		}
 
-		return entries;
+		if (!remaining.isEmpty()) {
+			throw new ZipException("Entries %s not found in the input jar for %s".formatted(remaining, env));
+		}
 	}
 
-	private void copyEntriesToJar(Set<String> entries, Path inputJar, Path outputJar, String env) throws IOException {
-		Files.deleteIfExists(outputJar);
-
-		try (FileSystemUtil.Delegate inputFs = FileSystemUtil.getJarFileSystem(inputJar);
-				FileSystemUtil.Delegate outputFs = FileSystemUtil.getJarFileSystem(outputJar, true)) {
-			for (String entry : entries) {
-				Path inputPath = inputFs.get().getPath(entry);
-				Path outputPath = outputFs.get().getPath(entry);
-
-				assert Files.isRegularFile(inputPath);
+	private static void writeParentDirectories(RawZipWriter writer, String name, Set<String> directories) throws IOException {
+		int index = 0;
 
-				Path outputPathParent = outputPath.getParent();
+		while ((index = name.indexOf('/', index) + 1) > 0) {
+			final String directory = name.substring(0, index);
 
-				if (outputPathParent != null) {
-					Files.createDirectories(outputPathParent);
-				}
-
-				Files.copy(inputPath, outputPath, StandardCopyOption.COPY_ATTRIBUTES);
+			if (directories.add(directory)) {
+				writer.putDirectory(directory);
 			}
-
-			writeManifest(outputFs, env);
 		}
 	}
 
-	private void writeManifest(FileSystemUtil.Delegate outputFs, String env) throws IOException {
+	private void writeManifest(RawZipWriter writer, String env) throws IOException {
 		final Manifest manifest = new Manifest();
 		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
 		manifest.getMainAttributes().putValue(JarSplitter.MANIFEST_SPLIT_ENV_NAME_KEY, env);
 		ByteArrayOutputStream out = new ByteArrayOutputStream();
 		manifest.write(out);
-		Files.createDirectories(outputFs.get().getPath("META-INF"));
-		Files.write(outputFs.get().getPath("META-INF/MANIFEST.MF"), out.toByteArray());
+		writer.putDirectory("META-INF/");
+		writer.putEntry(JarFile.MANIFEST_NAME, out.toByteArray());
 	}
 
 	@Override
@@ -43,8 +43,8 @@ public class MinecraftLibraryProvider {
 	private static final boolean IS_MACOS = OperatingSystem.CURRENT_OS.equals(OperatingSystem.MAC_OS);
 
 	private final Project project;
+	private final MinecraftProvider minecraftProvider;
 	private final MinecraftVersionMeta versionInfo;
-	private final BundleMetadata serverBundleMetadata;
 	private final boolean runtimeOnlyLog4j;
 	private final boolean provideClient;
 	private final boolean provideServer;
@@ -54,8 +54,8 @@ public class MinecraftLibraryProvider {
 		final MinecraftJarConfiguration jarConfiguration = extension.getMinecraftJarConfiguration().get();
 
 		this.project = project;
+		this.minecraftProvider = minecraftProvider;
 		this.versionInfo = minecraftProvider.getVersionInfo();
-		this.serverBundleMetadata = minecraftProvider.getServerBundleMetadata();
 		this.runtimeOnlyLog4j = extension.getRuntimeOnlyLog4j().get();
 		this.provideClient = jarConfiguration.getSupportedEnvironments().contains("client");
 		this.provideServer = jarConfiguration.getSupportedEnvironments().contains("server");
@@ -72,7 +72,10 @@ public class MinecraftLibraryProvider {
 		}
 	}
 
-	public void provide() {
+	/**
+	 * Adds the client libraries, only needs the version metadata.
+	 */
+	public void provideClient() {
 		if (provideClient) {
 			// Modern 1.19 version put the natives on the classpath.
 			final boolean hasNativesToExtract = versionInfo.hasNativesToExtract();
@@ -93,7 +96,12 @@ public class MinecraftLibraryProvider {
 				LWJGLVersionOverride.applyOverrides(project, IS_MACOS);
 			}
 		}
+	}
 
+	/**
+	 * Adds the server libraries, needs the server jar to have been downloaded to read the bundled libraries.
+	 */
+	public void provideServer() {
 		if (provideServer) {
 			provideServerLibraries();
 		}
@@ -148,6 +156,8 @@ public class MinecraftLibraryProvider {
 	}
 
 	private void provideServerLibraries() {
+		final BundleMetadata serverBundleMetadata = minecraftProvider.getServerBundleMetadata();
+
 		if (serverBundleMetadata != null) {
 			for (BundleMetadata.Entry library : serverBundleMetadata.libraries()) {
 				if (runtimeOnlyLog4j && library.name().startsWith("org.apache.logging.log4j")) {
@@ -40,6 +40,7 @@ import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.configuration.DependencyInfo;
 import net.fabricmc.loom.configuration.providers.BundleMetadata;
+import net.fabricmc.loom.util.ArtifactLock;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.MirrorUtil;
 import net.fabricmc.loom.util.download.DownloadBuilder;
@@ -48,6 +49,9 @@ import net.fabricmc.loom.util.download.GradleDownloadProgressListener;
 import net.fabricmc.loom.util.gradle.ProgressGroup;
 
 public abstract class MinecraftProvider {
+	// The client jar, server jar and asset index
+	private static final int DOWNLOAD_THREADS = 3;
+
 	private String minecraftVersion;
 
 	private MinecraftVersionMeta versionInfo;
@@ -91,14 +95,21 @@ public abstract class MinecraftProvider {
 			versionInfo = LoomGradlePlugin.OBJECT_MAPPER.readValue(reader, MinecraftVersionMeta.class);
 		}
 
-		downloadJars();
+		libraryProvider = new MinecraftLibraryProvider(this, project);
+
+		try (ProgressGroup progressGroup = new ProgressGroup(getProject(), "Download Minecraft JARs");
+				DownloadExecutor executor = new DownloadExecutor(DOWNLOAD_THREADS)) {
+			downloadJars(progressGroup, executor);
+
+			// Only needs the version metadata, so added while the jars are downloading.
+			libraryProvider.provideClient();
+		}
 
 		if (provideServer()) {
 			serverBundleMetadata = BundleMetadata.fromJar(minecraftServerJar.toPath());
 		}
 
-		libraryProvider = new MinecraftLibraryProvider(this, project);
-		libraryProvider.provide();
+		libraryProvider.provideServer();
 	}
 
 	protected void initFiles() {
@@ -119,7 +130,21 @@ public abstract class MinecraftProvider {
 	}
 
 	private void downloadMcJson() throws IOException {
+		final Path userCache = getExtension().getFiles().getUserCache().toPath();
 		final String versionManifestUrl = MirrorUtil.getVersionManifests(getProject());
+
+		if (!getExtension().refreshDeps() && !getExtension().getCustomMinecraftManifest().isPresent()) {
+			final VersionMetadataIndex.Entry indexed = VersionMetadataIndex.get(userCache, minecraftVersion);
+
+			if (indexed != null && indexed.manifestUrl().equals(versionManifestUrl)) {
+				// Already resolved from the manifests, nothing is downloaded when the cached json matches the hash.
+				getExtension().download(indexed.url())
+						.sha1(indexed.sha1())
+						.downloadPath(minecraftJson.toPath());
+				return;
+			}
+		}
+
 		final String versionManifest = getExtension().download(versionManifestUrl)
 				.defaultCache()
 				.downloadString(versionManifestJson.toPath());
@@ -159,6 +184,11 @@ public abstract class MinecraftProvider {
 		}
 
 		download.downloadPath(minecraftJson.toPath());
+
+		if (version.sha1 != null && !getExtension().getCustomMinecraftManifest().isPresent()) {
+			// Versions without a hash cannot be verified, they are always looked up in the manifests.
+			VersionMetadataIndex.put(userCache, minecraftVersion, new VersionMetadataIndex.Entry(versionManifestUrl, version.url, version.sha1));
+		}
 	}
 
 	// This attempts to find the version from Fabric's own fallback version manifest json.
@@ -180,24 +210,31 @@ public abstract class MinecraftProvider {
 		return result;
 	}
 
-	private void downloadJars() throws IOException {
-		try (ProgressGroup progressGroup = new ProgressGroup(getProject(), "Download Minecraft JARs");
-				DownloadExecutor executor = new DownloadExecutor(2)) {
-			if (provideClient()) {
-				final MinecraftVersionMeta.Download client = versionInfo.download("client");
-				getExtension().download(client.url())
-						.sha1(client.sha1())
-						.progress(new GradleDownloadProgressListener("Minecraft client", progressGroup::createProgressLogger))
-						.downloadPathAsync(minecraftClientJar.toPath(), executor);
+	private void downloadJars(ProgressGroup progressGroup, DownloadExecutor executor) throws IOException {
+		if (provideClient()) {
+			final MinecraftVersionMeta.Download client = versionInfo.download("client");
+			getExtension().download(client.url())
+					.sha1(client.sha1())
+					.progress(new GradleDownloadProgressListener("Minecraft client", progressGroup::createProgressLogger))
+					.downloadPathAsync(minecraftClientJar.toPath(), executor);
+
+			final MinecraftVersionMeta.AssetIndex assetIndex = versionInfo.assetIndex();
+
+			if (assetIndex != null) {
+				// Needed to run the client, fetched alongside the jars to the path used by the download assets task.
+				final File indexFile = new File(getExtension().getFiles().getUserCache(), "assets/indexes/" + assetIndex.fabricId(minecraftVersion) + ".json");
+				getExtension().download(assetIndex.url())
+						.sha1(assetIndex.sha1())
+						.downloadPathAsync(indexFile.toPath(), executor);
 			}
+		}
 
-			if (provideServer()) {
-				final MinecraftVersionMeta.Download server = versionInfo.download("server");
-				getExtension().download(server.url())
-						.sha1(server.sha1())
-						.progress(new GradleDownloadProgressListener("Minecraft server", progressGroup::createProgressLogger))
-						.downloadPathAsync(minecraftServerJar.toPath(), executor);
-			}
+		if (provideServer()) {
+			final MinecraftVersionMeta.Download server = versionInfo.download("server");
+			getExtension().download(server.url())
+					.sha1(server.sha1())
+					.progress(new GradleDownloadProgressListener("Minecraft server", progressGroup::createProgressLogger))
+					.downloadPathAsync(minecraftServerJar.toPath(), executor);
 		}
 	}
 
@@ -218,6 +255,14 @@ public abstract class MinecraftProvider {
 		return workingDir;
 	}
 
+	/**
+	 * Locks the working directory of the Minecraft version, to be held while the jars are provided.
+	 */
+	public ArtifactLock lockWorkingDir() throws IOException {
+		final String version = DependencyInfo.create(getProject(), Constants.Configurations.MINECRAFT).getDependency().getVersion();
+		return ArtifactLock.acquire(ArtifactLock.lockFileFor(getExtension().getFiles().getUserCache().toPath().resolve(version)));
+	}
+
 	public File dir(String path) {
 		File dir = file(path);
 		dir.mkdirs();
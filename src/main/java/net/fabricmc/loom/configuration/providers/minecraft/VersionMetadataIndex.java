@@ -0,0 +1,105 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.minecraft;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+import net.fabricmc.loom.util.ArtifactLock;
+
+/**
+ * A persisted index of the version metadata URLs and hashes found in the version manifests, keyed by version id.
+ *
+ * <p>A version that has been resolved once can be provided from the user cache without downloading or parsing the manifests.
+ */
+public final class VersionMetadataIndex {
+	private static final Logger LOGGER = LoggerFactory.getLogger(VersionMetadataIndex.class);
+	private static final String FILE_NAME = "version_metadata_index.json";
+
+	private VersionMetadataIndex() {
+	}
+
+	/**
+	 * @param manifestUrl the url of the version manifest the version was looked up from, as the manifest mirror may change
+	 * @param url the url of the version metadata json
+	 * @param sha1 the expected hash of the version metadata json
+	 */
+	public record Entry(String manifestUrl, String url, String sha1) {
+	}
+
+	private record Index(Map<String, Entry> versions) {
+	}
+
+	@Nullable
+	public static Entry get(Path userCache, String version) {
+		final Index index = read(userCache.resolve(FILE_NAME));
+		return index.versions().get(version);
+	}
+
+	public static void put(Path userCache, String version, Entry entry) throws IOException {
+		final Path indexFile = userCache.resolve(FILE_NAME);
+
+		try (ArtifactLock ignored = ArtifactLock.acquire(ArtifactLock.lockFileFor(indexFile))) {
+			final Map<String, Entry> versions = new TreeMap<>(read(indexFile).versions());
+
+			if (entry.equals(versions.put(version, entry))) {
+				return;
+			}
+
+			// Replaced atomically so that the index can be read without holding the lock.
+			final Path tempFile = indexFile.resolveSibling(FILE_NAME + ".tmp");
+			Files.writeString(tempFile, LoomGradlePlugin.OBJECT_MAPPER.writeValueAsString(new Index(versions)));
+			Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+
+	private static Index read(Path indexFile) {
+		if (!Files.exists(indexFile)) {
+			return new Index(Map.of());
+		}
+
+		try {
+			final Index index = LoomGradlePlugin.OBJECT_MAPPER.readValue(Files.readString(indexFile), Index.class);
+			return index.versions() != null ? index : new Index(Map.of());
+		} catch (JsonProcessingException e) {
+			// The index only saves a manifest lookup, a corrupt one is rebuilt.
+			LOGGER.warn("Ignoring invalid version metadata index {}", indexFile, e);
+			return new Index(Map.of());
+		} catch (IOException e) {
+			LOGGER.warn("Failed to read version metadata index {}", indexFile, e);
+			return new Index(Map.of());
+		}
+	}
+}
@@ -27,11 +27,17 @@ package net.fabricmc.loom.configuration.providers.minecraft.mapped;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import com.google.common.base.Preconditions;
 import org.gradle.api.Project;
+import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
@@ -39,7 +45,10 @@ import net.fabricmc.loom.configuration.providers.mappings.MappingsProviderImpl;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftSourceSets;
 import net.fabricmc.loom.configuration.providers.minecraft.SignatureFixerApplyVisitor;
+import net.fabricmc.loom.util.ArtifactLock;
 import net.fabricmc.loom.util.TinyRemapperHelper;
+import net.fabricmc.loom.util.zip.RawZipFile;
+import net.fabricmc.tinyremapper.InputTag;
 import net.fabricmc.tinyremapper.OutputConsumerPath;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
@@ -66,13 +75,15 @@ public abstract class AbstractMappedMinecraftProvider<M extends MinecraftProvide
 		final List<RemappedJars> remappedJars = getRemappedJars();
 		assert !remappedJars.isEmpty();
 
-		if (!areOutputsValid(remappedJars) || extension.refreshDeps()) {
-			try {
-				remapInputs(remappedJars);
-			} catch (Throwable t) {
-				cleanOutputs(remappedJars);
+		try (ArtifactLock ignored = ArtifactLock.acquire(getLockFile())) {
+			if (!areOutputsValid(remappedJars) || extension.refreshDeps()) {
+				try {
+					remapInputs(remappedJars);
+				} catch (Throwable t) {
+					cleanOutputs(remappedJars);
 
-				throw new RuntimeException("Failed to remap minecraft", t);
+					throw new RuntimeException("Failed to remap minecraft", t);
+				}
 			}
 		}
 
@@ -92,6 +103,11 @@ public abstract class AbstractMappedMinecraftProvider<M extends MinecraftProvide
 
 	protected abstract Path getDirectory();
 
+	// Held while the jars are remapped, the directory is shared by the projects using the same version and mappings.
+	private Path getLockFile() {
+		return ArtifactLock.lockFileFor(getDirectory().resolve(getTargetNamespace().toString()));
+	}
+
 	@Override
 	public Path getJar(String name) {
 		return getDirectory().resolve(getName(name) + ".jar");
@@ -115,45 +131,100 @@ public abstract class AbstractMappedMinecraftProvider<M extends MinecraftProvide
 		return true;
 	}
 
+	/**
+	 * Remaps all the jars with a single remapper, so that the mappings and the library classpath are only read once.
+	 * Each jar is read with its own input tag, and written to its own output.
+	 */
 	private void remapInputs(List<RemappedJars> remappedJars) throws IOException {
 		cleanOutputs(remappedJars);
 
-		for (RemappedJars remappedJar : remappedJars) {
-			remapJar(remappedJar);
-		}
-	}
-
-	private void remapJar(RemappedJars remappedJars) throws IOException {
 		final MappingsProviderImpl mappingsProvider = extension.getMappingsProvider();
-		final String fromM = remappedJars.sourceNamespace().toString();
-		final String toM = getTargetNamespace().toString();
+		final MappingsNamespace sourceNamespace = remappedJars.get(0).sourceNamespace();
+		Preconditions.checkArgument(remappedJars.stream().allMatch(jar -> jar.sourceNamespace() == sourceNamespace), "All jars must be remapped from the same namespace");
 
-		Files.deleteIfExists(remappedJars.outputJar());
+		final String fromM = sourceNamespace.toString();
+		final String toM = getTargetNamespace().toString();
 
+		final Map<String, TinyRemapper.ApplyVisitorProvider> classVisitors = getClassPostApplyVisitors(remappedJars);
 		final Map<String, String> remappedSignatures = SignatureFixerApplyVisitor.getRemappedSignatures(getTargetNamespace() == MappingsNamespace.INTERMEDIARY, mappingsProvider, project, toM);
 		TinyRemapper remapper = TinyRemapperHelper.getTinyRemapper(project, fromM, toM, true, (builder) -> {
 			builder.extraPostApplyVisitor(new SignatureFixerApplyVisitor(remappedSignatures));
-			configureRemapper(remappedJars, builder);
+
+			if (!classVisitors.isEmpty()) {
+				builder.extraPostApplyVisitor((cls, next) -> {
+					final TinyRemapper.ApplyVisitorProvider provider = classVisitors.get(cls.getName());
+					return provider != null ? provider.insertApplyVisitor(cls, next) : next;
+				});
+			}
 		});
 
-		try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(remappedJars.outputJar()).build()) {
-			outputConsumer.addNonClassFiles(remappedJars.inputJar());
-			remapper.readClassPath(TinyRemapperHelper.getMinecraftDependencies(project));
+		final Set<Path> inputJars = remappedJars.stream().map(RemappedJars::inputJar).collect(Collectors.toSet());
+		final List<InputTag> tags = new ArrayList<>();
+		final List<OutputConsumerPath> outputConsumers = new ArrayList<>();
 
-			for (Path path : remappedJars.remapClasspath()) {
-				remapper.readClassPath(path);
+		try {
+			remapper.readClassPathAsync(TinyRemapperHelper.getMinecraftDependencies(project));
+
+			for (RemappedJars remappedJar : remappedJars) {
+				for (Path path : remappedJar.remapClasspath()) {
+					// Jars remapped alongside are already known to the remapper as inputs.
+					if (!inputJars.contains(path)) {
+						remapper.readClassPathAsync(path);
+					}
+				}
+
+				final InputTag tag = remapper.createInputTag();
+				remapper.readInputsAsync(tag, remappedJar.inputJar());
+				tags.add(tag);
 			}
 
-			remapper.readInputs(remappedJars.inputJar());
-			remapper.apply(outputConsumer);
+			for (int i = 0; i < remappedJars.size(); i++) {
+				final OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(remappedJars.get(i).outputJar()).build();
+				outputConsumers.add(outputConsumer);
+
+				outputConsumer.addNonClassFiles(remappedJars.get(i).inputJar());
+				remapper.apply(outputConsumer, tags.get(i));
+			}
 		} catch (Exception e) {
-			throw new RuntimeException("Failed to remap JAR " + remappedJars.inputJar() + " with mappings from " + mappingsProvider.tinyMappings, e);
+			throw new RuntimeException("Failed to remap JARs " + inputJars + " with mappings from " + mappingsProvider.tinyMappings, e);
 		} finally {
 			remapper.finish();
+
+			for (OutputConsumerPath outputConsumer : outputConsumers) {
+				outputConsumer.close();
+			}
 		}
 	}
 
-	protected void configureRemapper(RemappedJars remappedJars, TinyRemapper.Builder tinyRemapperBuilder) {
+	// Maps the classes of each jar to the visitor applied to that jar, as the visitors of a shared remapper apply to all classes.
+	private Map<String, TinyRemapper.ApplyVisitorProvider> getClassPostApplyVisitors(List<RemappedJars> remappedJars) throws IOException {
+		final Map<String, TinyRemapper.ApplyVisitorProvider> classVisitors = new HashMap<>();
+
+		for (RemappedJars remappedJar : remappedJars) {
+			final TinyRemapper.ApplyVisitorProvider provider = getPostApplyVisitor(remappedJar);
+
+			if (provider == null) {
+				continue;
+			}
+
+			try (RawZipFile zipFile = RawZipFile.open(remappedJar.inputJar())) {
+				for (RawZipFile.Entry entry : zipFile.entries()) {
+					if (entry.name().endsWith(".class")) {
+						classVisitors.put(entry.name().substring(0, entry.name().length() - ".class".length()), provider);
+					}
+				}
+			}
+		}
+
+		return classVisitors;
+	}
+
+	/**
+	 * @return a visitor applied to the classes of the given jar after remapping, or null
+	 */
+	@Nullable
+	protected TinyRemapper.ApplyVisitorProvider getPostApplyVisitor(RemappedJars remappedJars) {
+		return null;
 	}
 
 	private void cleanOutputs(List<RemappedJars> remappedJars) throws IOException {
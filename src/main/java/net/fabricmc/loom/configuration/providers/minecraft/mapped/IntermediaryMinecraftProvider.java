@@ -38,6 +38,8 @@ import net.fabricmc.loom.util.SidedClassVisitor;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
 public abstract sealed class IntermediaryMinecraftProvider<M extends MinecraftProvider> extends AbstractMappedMinecraftProvider<M> permits IntermediaryMinecraftProvider.MergedImpl, IntermediaryMinecraftProvider.SingleJarImpl, IntermediaryMinecraftProvider.SplitImpl {
+	private boolean provided = false;
+
 	public IntermediaryMinecraftProvider(Project project, M minecraftProvider) {
 		super(project, minecraftProvider);
 	}
@@ -52,6 +54,28 @@ public abstract sealed class IntermediaryMinecraftProvider<M extends MinecraftPr
 		return MappingsNamespace.INTERMEDIARY;
 	}
 
+	/**
+	 * The named jars are remapped directly from the official jars, so the intermediary jars are only remapped once something needs them.
+	 *
+	 * <p>Must only be called during configuration, by the consumers reading the jars then, or before the task graph runs for the tasks
+	 * reading them at execution time. The path getters, including {@link #getMinecraftJars()}, never remap the jars.
+	 *
+	 * @return the remapped jars
+	 */
+	public synchronized List<Path> provideMinecraftJars() {
+		if (!provided) {
+			try {
+				provide(false);
+			} catch (Exception e) {
+				throw new RuntimeException("Failed to provide intermediary minecraft jars", e);
+			}
+
+			provided = true;
+		}
+
+		return getMinecraftJars();
+	}
+
 	public static final class MergedImpl extends IntermediaryMinecraftProvider<MergedMinecraftProvider> implements Merged {
 		public MergedImpl(Project project, MergedMinecraftProvider minecraftProvider) {
 			super(project, minecraftProvider);
@@ -79,10 +103,8 @@ public abstract sealed class IntermediaryMinecraftProvider<M extends MinecraftPr
 		}
 
 		@Override
-		protected void configureRemapper(RemappedJars remappedJars, TinyRemapper.Builder tinyRemapperBuilder) {
-			if (remappedJars.outputJar().equals(getClientOnlyJar())) {
-				tinyRemapperBuilder.extraPostApplyVisitor(SidedClassVisitor.CLIENT);
-			}
+		protected TinyRemapper.ApplyVisitorProvider getPostApplyVisitor(RemappedJars remappedJars) {
+			return remappedJars.outputJar().equals(getClientOnlyJar()) ? SidedClassVisitor.CLIENT : null;
 		}
 	}
 
@@ -26,10 +26,16 @@ package net.fabricmc.loom.configuration.providers.minecraft.mapped;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import com.google.common.hash.Hashing;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.configuration.processors.JarProcessorManager;
@@ -38,10 +44,18 @@ import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftSourceSets;
 import net.fabricmc.loom.configuration.providers.minecraft.SingleJarMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.SplitMinecraftProvider;
+import net.fabricmc.loom.util.ArtifactLock;
+import net.fabricmc.loom.util.Checksum;
 
 public abstract class ProcessedNamedMinecraftProvider<M extends MinecraftProvider, P extends NamedMinecraftProvider<M>> extends NamedMinecraftProvider<M> {
+	private static final String PROCESSED_PREFIX = "minecraft-processed-";
+	// Jars from before the processed jars were shared, named after the project.
+	private static final String LEGACY_PROJECT_PREFIX = "minecraft-project-";
+	private static final String REFERENCES_DIR = "processed-references";
+
 	private final P parentMinecraftProvider;
 	private final JarProcessorManager jarProcessorManager;
+	private final String processorChainHash;
 	private final String projectMappedName;
 	private final Path projectMappedDir;
 
@@ -50,9 +64,13 @@ public abstract class ProcessedNamedMinecraftProvider<M extends MinecraftProvide
 		this.parentMinecraftProvider = parentMinecraftProvide;
 		this.jarProcessorManager = jarProcessorManager;
 
-		this.projectMappedName = "minecraft-project-%s-".formatted(getProject().getPath().replace(':', '@'));
-
 		final LoomGradleExtension extension = LoomGradleExtension.get(getProject());
+
+		// The input jars are identified by the directory (version and mappings id), their name and the hash of the mappings, so projects with
+		// the same processors share the processed jars. The processors are identified by their ids, see JarProcessor#getId().
+		this.processorChainHash = getProcessedJarsHash(jarProcessorManager, extension.getMappingsProvider().tinyMappings);
+		this.projectMappedName = PROCESSED_PREFIX + processorChainHash + "-";
+
 		this.projectMappedDir = extension.getFiles().getRootProjectPersistentCache().toPath()
 				.resolve(getMinecraftProvider().minecraftVersion())
 				.resolve(extension.getMappingsProvider().mappingsIdentifier());
@@ -62,25 +80,28 @@ public abstract class ProcessedNamedMinecraftProvider<M extends MinecraftProvide
 	public void provide(boolean applyDependencies) throws Exception {
 		parentMinecraftProvider.provide(false);
 
-		final List<Path> inputJars = parentMinecraftProvider.getMinecraftJars();
-		boolean requiresProcessing = extension.refreshDeps() || inputJars.stream()
-				.map(this::getProcessedPath)
-				.map(Path::toFile)
-				.anyMatch(jarProcessorManager::isInvalid);
-
-		if (requiresProcessing) {
-			try {
-				Files.createDirectories(projectMappedDir);
-			} catch (IOException e) {
-				throw new UncheckedIOException("Failed to create project mapped dir", e);
-			}
+		try {
+			Files.createDirectories(projectMappedDir);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to create project mapped dir", e);
+		}
 
-			for (Path inputJar : inputJars) {
-				final Path outputJar = getProcessedPath(inputJar);
-				deleteSimilarJars(outputJar);
+		// Referenced before processing, so that the jars are not cleaned up by another project in the meantime.
+		updateReferences();
 
-				Files.copy(inputJar, outputJar, StandardCopyOption.REPLACE_EXISTING);
-				jarProcessorManager.process(outputJar.toFile());
+		final List<Path> inputJars = parentMinecraftProvider.getMinecraftJars();
+
+		try (ArtifactLock ignored = ArtifactLock.acquire(ArtifactLock.lockFileFor(projectMappedDir.resolve(PROCESSED_PREFIX + processorChainHash)))) {
+			// Checked while holding the lock, another project may have just processed the same jars.
+			boolean requiresProcessing = extension.refreshDeps() || inputJars.stream()
+					.map(this::getProcessedPath)
+					.map(Path::toFile)
+					.anyMatch(jarProcessorManager::isInvalid);
+
+			if (requiresProcessing) {
+				for (Path inputJar : inputJars) {
+					process(inputJar, getProcessedPath(inputJar));
+				}
 			}
 		}
 
@@ -98,9 +119,93 @@ public abstract class ProcessedNamedMinecraftProvider<M extends MinecraftProvide
 		}
 	}
 
-	private void deleteSimilarJars(Path jar) throws IOException {
-		Files.deleteIfExists(jar);
+	private static String getProcessedJarsHash(JarProcessorManager jarProcessorManager, Path mappings) {
+		try {
+			return Hashing.sha256().newHasher()
+					.putString(jarProcessorManager.getProcessorChainHash(), StandardCharsets.UTF_8)
+					.putString(Checksum.sha256Hex(mappings), StandardCharsets.UTF_8)
+					.hash()
+					.toString()
+					.substring(0, 16);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to hash mappings", e);
+		}
+	}
+
+	/**
+	 * Processes a copy of the input jar next to the output, then moves it into place.
+	 * The output may be shared with other projects, or open in an IDE, so it is never written in place.
+	 */
+	private void process(Path inputJar, Path outputJar) throws IOException {
+		final Path tempJar = Files.createTempFile(projectMappedDir, outputJar.getFileName().toString(), ".tmp");
+
+		try {
+			Files.copy(inputJar, tempJar, StandardCopyOption.REPLACE_EXISTING);
+			jarProcessorManager.process(tempJar.toFile());
+
+			deleteSimilarJars(outputJar);
+			Files.move(tempJar, outputJar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tempJar);
+		}
+	}
+
+	/**
+	 * Records the processed jars used by this project, and deletes the processed jars no longer used by any project.
+	 */
+	private void updateReferences() throws IOException {
+		final Path referencesDir = projectMappedDir.resolve(REFERENCES_DIR);
+
+		try (ArtifactLock ignored = ArtifactLock.acquire(ArtifactLock.lockFileFor(referencesDir))) {
+			Files.createDirectories(referencesDir);
+			Files.writeString(referencesDir.resolve(getProject().getPath().replace(':', '@')), processorChainHash);
 
+			final Set<String> referenced = new HashSet<>();
+
+			try (Stream<Path> stream = Files.list(referencesDir)) {
+				for (Path reference : stream.filter(Files::isRegularFile).toList()) {
+					referenced.add(Files.readString(reference).trim());
+				}
+			}
+
+			final List<Path> unreferenced;
+
+			try (Stream<Path> stream = Files.list(projectMappedDir)) {
+				unreferenced = stream.filter(Files::isRegularFile)
+						.filter(path -> isUnreferenced(path.getFileName().toString(), referenced))
+						.toList();
+			}
+
+			for (Path path : unreferenced) {
+				try {
+					Files.deleteIfExists(path);
+				} catch (IOException e) {
+					// Most likely still open elsewhere, such as in an IDE on Windows. Tried again next time.
+					getProject().getLogger().info("Failed to delete unused processed jar {}", path, e);
+				}
+			}
+		}
+	}
+
+	private static boolean isUnreferenced(String fileName, Set<String> referenced) {
+		if (fileName.endsWith(".lock")) {
+			// Lock files may be held by other processes, they are never deleted.
+			return false;
+		}
+
+		if (fileName.startsWith(LEGACY_PROJECT_PREFIX)) {
+			return true;
+		}
+
+		if (!fileName.startsWith(PROCESSED_PREFIX)) {
+			return false;
+		}
+
+		final int hashEnd = fileName.indexOf('-', PROCESSED_PREFIX.length());
+		return hashEnd < 0 || !referenced.contains(fileName.substring(PROCESSED_PREFIX.length(), hashEnd));
+	}
+
+	private void deleteSimilarJars(Path jar) throws IOException {
 		for (Path path : Files.list(jar.getParent()).filter(Files::isRegularFile)
 				.filter(path -> path.getFileName().startsWith(jar.getFileName().toString().replace(".jar", ""))).toList()) {
 			Files.deleteIfExists(path);
@@ -0,0 +1,286 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.decompilers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.mappingio.tree.MappingTree;
+
+/**
+ * A compact index of the javadoc comments in the mappings, keyed by the named class and member signatures.
+ *
+ * <p>The index is written once by the plugin and memory mapped by the decompile worker, which only decodes the classes that are looked up.
+ * Jars decompiled concurrently in the same worker share the index, a reused worker keeps it while it is given the same index.
+ */
+public final class JavadocIndex {
+	private static final int MAGIC = 0x4C4A4458;
+	private static final int VERSION = 1;
+	private static final Map<Key, JavadocIndex> CACHE = new ConcurrentHashMap<>();
+
+	private final ByteBuffer buffer;
+	private final Map<String, Integer> classOffsets;
+	private final Map<String, ClassDoc> classes = new ConcurrentHashMap<>();
+
+	private JavadocIndex(ByteBuffer buffer) {
+		if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+			throw new IllegalStateException("Unsupported javadoc index");
+		}
+
+		final int classCount = buffer.getInt();
+		final Map<String, Integer> offsets = new HashMap<>(classCount);
+
+		for (int i = 0; i < classCount; i++) {
+			offsets.put(readString(buffer), buffer.getInt());
+		}
+
+		// Offsets are relative to the end of the class table
+		this.buffer = buffer.slice();
+		this.classOffsets = offsets;
+	}
+
+	public static JavadocIndex get(Path index) {
+		return CACHE.computeIfAbsent(Key.of(index), key -> open(key.path()));
+	}
+
+	/**
+	 * Releases the loaded indexes, should be called once all decompile jobs in the worker have completed.
+	 */
+	public static void clear() {
+		CACHE.clear();
+	}
+
+	/**
+	 * Keeps the loaded index for the next decompile in a reused worker.
+	 * Only the given index is retained, and nothing is kept once more than half of the worker's heap is in use.
+	 */
+	public static void retain(Path index) {
+		final Runtime runtime = Runtime.getRuntime();
+		final long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+
+		if (usedMemory > runtime.maxMemory() / 2) {
+			clear();
+			return;
+		}
+
+		final Key key = Key.of(index);
+		CACHE.keySet().removeIf(k -> !k.equals(key));
+	}
+
+	private static JavadocIndex open(Path index) {
+		try (FileChannel channel = FileChannel.open(index)) {
+			return new JavadocIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read javadoc index " + index, e);
+		}
+	}
+
+	@Nullable
+	public ClassDoc getClass(String name) {
+		final Integer offset = classOffsets.get(name);
+
+		if (offset == null) {
+			return null;
+		}
+
+		return classes.computeIfAbsent(name, n -> readClass(buffer.duplicate().position(offset)));
+	}
+
+	private static ClassDoc readClass(ByteBuffer buffer) {
+		final String comment = readString(buffer);
+		final int fieldCount = buffer.getInt();
+		final Map<String, String> fields = new HashMap<>(fieldCount);
+
+		for (int i = 0; i < fieldCount; i++) {
+			fields.put(memberKey(readString(buffer), readString(buffer)), readString(buffer));
+		}
+
+		final int methodCount = buffer.getInt();
+		final Map<String, MethodDoc> methods = new HashMap<>(methodCount);
+
+		for (int i = 0; i < methodCount; i++) {
+			final String key = memberKey(readString(buffer), readString(buffer));
+			final String methodComment = readString(buffer);
+			final int paramCount = buffer.getInt();
+			final List<ParamDoc> params = new ArrayList<>(paramCount);
+
+			for (int j = 0; j < paramCount; j++) {
+				params.add(new ParamDoc(readString(buffer), readString(buffer)));
+			}
+
+			methods.put(key, new MethodDoc(methodComment, Collections.unmodifiableList(params)));
+		}
+
+		return new ClassDoc(comment, fields, methods);
+	}
+
+	@Nullable
+	private static String readString(ByteBuffer buffer) {
+		final int length = buffer.getInt();
+
+		if (length < 0) {
+			return null;
+		}
+
+		final byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes the comments of the given mappings to an index, using the names and descriptors of the given namespace.
+	 * Only elements with a comment, or with members or parameters that have one, are included.
+	 */
+	public static void write(MappingTree mappingTree, String namespace, Path output) throws IOException {
+		final ByteArrayOutputStream classData = new ByteArrayOutputStream();
+		final DataOutputStream classOutput = new DataOutputStream(classData);
+		final Map<String, Integer> classOffsets = new HashMap<>();
+
+		for (MappingTree.ClassMapping classMapping : mappingTree.getClasses()) {
+			final List<? extends MappingTree.FieldMapping> fields = classMapping.getFields().stream()
+					.filter(field -> field.getComment() != null)
+					.toList();
+			final List<? extends MappingTree.MethodMapping> methods = classMapping.getMethods().stream()
+					.filter(method -> method.getComment() != null || method.getArgs().stream().anyMatch(arg -> arg.getComment() != null))
+					.toList();
+
+			if (classMapping.getComment() == null && fields.isEmpty() && methods.isEmpty()) {
+				continue;
+			}
+
+			classOffsets.put(getName(classMapping, namespace), classOutput.size());
+			writeString(classOutput, classMapping.getComment());
+
+			classOutput.writeInt(fields.size());
+
+			for (MappingTree.FieldMapping field : fields) {
+				writeString(classOutput, getName(field, namespace));
+				writeString(classOutput, field.getDesc(namespace));
+				writeString(classOutput, field.getComment());
+			}
+
+			classOutput.writeInt(methods.size());
+
+			for (MappingTree.MethodMapping method : methods) {
+				final List<? extends MappingTree.MethodArgMapping> args = method.getArgs().stream()
+						.filter(arg -> arg.getComment() != null)
+						.toList();
+
+				writeString(classOutput, getName(method, namespace));
+				writeString(classOutput, method.getDesc(namespace));
+				writeString(classOutput, method.getComment());
+				classOutput.writeInt(args.size());
+
+				for (MappingTree.MethodArgMapping arg : args) {
+					writeString(classOutput, getName(arg, namespace));
+					writeString(classOutput, arg.getComment());
+				}
+			}
+		}
+
+		final Path tempFile = Files.createTempFile(output.getParent(), output.getFileName().toString(), ".tmp");
+
+		try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tempFile))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(classOffsets.size());
+
+			for (Map.Entry<String, Integer> entry : classOffsets.entrySet()) {
+				writeString(out, entry.getKey());
+				out.writeInt(entry.getValue());
+			}
+
+			classData.writeTo(out);
+		}
+
+		// Move into place once complete, another build may be reading the index.
+		Files.move(tempFile, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void writeString(DataOutputStream out, @Nullable String str) throws IOException {
+		if (str == null) {
+			out.writeInt(-1);
+			return;
+		}
+
+		final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String getName(MappingTree.ElementMapping element, String namespace) {
+		final String name = element.getName(namespace);
+		return name != null ? name : element.getSrcName();
+	}
+
+	private static String memberKey(String name, String descriptor) {
+		return name + ":" + descriptor;
+	}
+
+	public record ClassDoc(@Nullable String comment, Map<String, String> fieldComments, Map<String, MethodDoc> methods) {
+		@Nullable
+		public String getFieldComment(String name, String descriptor) {
+			return fieldComments.get(memberKey(name, descriptor));
+		}
+
+		@Nullable
+		public MethodDoc getMethod(String name, String descriptor) {
+			return methods.get(memberKey(name, descriptor));
+		}
+	}
+
+	public record MethodDoc(@Nullable String comment, List<ParamDoc> params) {
+	}
+
+	public record ParamDoc(String name, String comment) {
+	}
+
+	// The index is named by the hash of its inputs, the modification time is not part of the key as it marks the index as recently used.
+	private record Key(Path path, long size) {
+		static Key of(Path path) {
+			try {
+				return new Key(path.toAbsolutePath(), Files.size(path));
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to read attributes of " + path, e);
+			}
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.decompilers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes the line map read by {@link LineNumberRemapper}, from line number pairs held in primitive arrays.
+ */
+public final class LineMapWriter implements Closeable {
+	private final Writer writer;
+
+	public LineMapWriter(Path output) throws IOException {
+		this.writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes the line numbers of a class.
+	 *
+	 * @param className the internal name of the class
+	 * @param mapping pairs of original and decompiled line numbers
+	 * @param length the number of values used in the mapping array
+	 */
+	public void writeClass(String className, int[] mapping, int length) throws IOException {
+		int maxLine = 0;
+		int maxLineDest = 0;
+
+		for (int i = 0; i < length; i += 2) {
+			maxLine = Math.max(maxLine, mapping[i]);
+			maxLineDest = Math.max(maxLineDest, mapping[i + 1]);
+		}
+
+		writer.write(className);
+		writeNumber(maxLine);
+		writeNumber(maxLineDest);
+		writer.write('\n');
+
+		for (int i = 0; i < length; i += 2) {
+			writeNumber(mapping[i]);
+			writeNumber(mapping[i + 1]);
+			writer.write('\n');
+		}
+
+		writer.write('\n');
+	}
+
+	private void writeNumber(int number) throws IOException {
+		writer.write('\t');
+		writer.write(Integer.toString(number));
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.decompilers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes decompiled sources as UTF-8 without creating a byte array copy of the whole source.
+ *
+ * <p>The text is encoded in small chunks through a per-thread buffer directly into the output, usually the current zip entry.
+ */
+public final class SourceEntryWriter {
+	private static final int BUFFER_SIZE = 8192;
+	private static final ThreadLocal<SourceEntryWriter> WRITERS = ThreadLocal.withInitial(SourceEntryWriter::new);
+
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	private SourceEntryWriter() {
+	}
+
+	public static void write(CharSequence source, OutputStream output) throws IOException {
+		WRITERS.get().encode(source, output);
+	}
+
+	private void encode(CharSequence source, OutputStream output) throws IOException {
+		final CharBuffer chars = CharBuffer.wrap(source);
+		CoderResult result;
+
+		encoder.reset();
+
+		do {
+			result = encoder.encode(chars, buffer, true);
+			drain(output);
+		} while (result.isOverflow());
+
+		do {
+			result = encoder.flush(buffer);
+			drain(output);
+		} while (result.isOverflow());
+	}
+
+	private void drain(OutputStream output) throws IOException {
+		buffer.flip();
+		output.write(buffer.array(), 0, buffer.limit());
+		buffer.clear();
+	}
+}
@@ -25,6 +25,7 @@
 package net.fabricmc.loom.decompilers.cfr;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -37,12 +38,13 @@ import java.util.TreeMap;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 
-import com.google.common.base.Charsets;
 import org.benf.cfr.reader.api.OutputSinkFactory;
 import org.benf.cfr.reader.api.SinkReturns;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.fabricmc.loom.decompilers.LineMapWriter;
+import net.fabricmc.loom.decompilers.SourceEntryWriter;
 import net.fabricmc.loom.util.IOStringConsumer;
 
 public class CFRSinkFactory implements OutputSinkFactory {
@@ -51,11 +53,14 @@ public class CFRSinkFactory implements OutputSinkFactory {
 	private final JarOutputStream outputStream;
 	private final IOStringConsumer logger;
 	private final Set<String> addedDirectories = new HashSet<>();
-	private final Map<String, Map<Integer, Integer>> lineMap = new TreeMap<>();
+	private final Map<String, LineNumbers> lineMap = new TreeMap<>();
+	private final int totalClasses;
+	private int writtenClasses = 0;
 
-	public CFRSinkFactory(JarOutputStream outputStream, IOStringConsumer logger) {
+	public CFRSinkFactory(JarOutputStream outputStream, IOStringConsumer logger, int totalClasses) {
 		this.outputStream = outputStream;
 		this.logger = logger;
+		this.totalClasses = totalClasses;
 	}
 
 	@Override
@@ -83,9 +88,7 @@ public class CFRSinkFactory implements OutputSinkFactory {
 			if (!filename.isEmpty()) filename += "/";
 			filename += sinkable.getClassName() + ".java";
 
-			byte[] data = sinkable.getJava().getBytes(Charsets.UTF_8);
-
-			writeToJar(filename, data);
+			writeToJar(filename, sinkable.getJava());
 		};
 	}
 
@@ -97,6 +100,8 @@ public class CFRSinkFactory implements OutputSinkFactory {
 
 			if (classFileMappings == null || mappings == null) return;
 
+			final LineNumbers lineNumbers = getLineNumbers(className);
+
 			for (Map.Entry<Integer, Integer> entry : mappings.entrySet()) {
 				// New line number
 				Integer dstLineNumber = entry.getValue();
@@ -106,12 +111,16 @@ public class CFRSinkFactory implements OutputSinkFactory {
 
 				if (srcLineNumber == null || dstLineNumber == null) continue;
 
-				lineMap.computeIfAbsent(className, (c) -> new TreeMap<>()).put(srcLineNumber, dstLineNumber);
+				lineNumbers.add(srcLineNumber, dstLineNumber);
 			}
 		};
 	}
 
-	private synchronized void writeToJar(String filename, byte[] data) {
+	private synchronized LineNumbers getLineNumbers(String className) {
+		return lineMap.computeIfAbsent(className, c -> new LineNumbers());
+	}
+
+	private synchronized void writeToJar(String filename, String java) {
 		String[] path = filename.split("/");
 		String pathPart = "";
 
@@ -133,19 +142,37 @@ public class CFRSinkFactory implements OutputSinkFactory {
 
 		JarEntry entry = new JarEntry(filename);
 		entry.setTime(new Date().getTime());
-		entry.setSize(data.length);
 
 		try {
 			logger.accept("Writing: " + filename);
 			outputStream.putNextEntry(entry);
-			outputStream.write(data);
+			SourceEntryWriter.write(java, outputStream);
 			outputStream.closeEntry();
+			logger.progress(++writtenClasses, totalClasses);
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
-	public Map<String, Map<Integer, Integer>> getLineMap() {
-		return Collections.unmodifiableMap(lineMap);
+	public void writeLineMap(LineMapWriter writer) throws IOException {
+		for (Map.Entry<String, LineNumbers> entry : lineMap.entrySet()) {
+			final LineNumbers lineNumbers = entry.getValue();
+			writer.writeClass(entry.getKey().replace(".", "/"), lineNumbers.pairs, lineNumbers.size);
+		}
+	}
+
+	// Pairs of original and decompiled line numbers, later pairs for the same original line take precedence.
+	private static final class LineNumbers {
+		private int[] pairs = new int[32];
+		private int size = 0;
+
+		synchronized void add(int src, int dst) {
+			if (size == pairs.length) {
+				pairs = Arrays.copyOf(pairs, size * 2);
+			}
+
+			pairs[size++] = src;
+			pairs[size++] = dst;
+		}
 	}
 }
@@ -24,6 +24,8 @@
 
 package net.fabricmc.loom.decompilers.fernflower;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
@@ -35,6 +37,7 @@ import org.jetbrains.java.decompiler.main.extern.IResultSaver;
 import net.fabricmc.fernflower.api.IFabricJavadocProvider;
 import net.fabricmc.loom.api.decompilers.DecompilationMetadata;
 import net.fabricmc.loom.api.decompilers.LoomDecompiler;
+import net.fabricmc.loom.util.ZipUtils;
 
 public final class FabricFernFlowerDecompiler implements LoomDecompiler {
 	@Override
@@ -53,8 +56,16 @@ public final class FabricFernFlowerDecompiler implements LoomDecompiler {
 
 		options.putAll(metaData.options());
 
+		final int totalClasses;
+
+		try {
+			totalClasses = ZipUtils.count(compiledJar, name -> name.endsWith(".class") && !name.contains("$"));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read " + compiledJar, e);
+		}
+
 		IResultSaver saver = new ThreadSafeResultSaver(sourcesDestination::toFile, linemapDestination::toFile);
-		Fernflower ff = new Fernflower(FernFlowerUtils::getBytecode, saver, options, new FernflowerLogger(metaData.logger()));
+		Fernflower ff = new Fernflower(FernFlowerUtils::getBytecode, saver, options, new FernflowerLogger(metaData.logger(), totalClasses));
 
 		for (Path library : metaData.libraries()) {
 			ff.addLibrary(library.toFile());
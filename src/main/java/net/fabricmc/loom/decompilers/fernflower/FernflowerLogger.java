@@ -25,6 +25,7 @@
 package net.fabricmc.loom.decompilers.fernflower;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 
@@ -32,9 +33,12 @@ import net.fabricmc.loom.util.IOStringConsumer;
 
 public class FernflowerLogger extends IFernflowerLogger {
 	private final IOStringConsumer logger;
+	private final int totalClasses;
+	private final AtomicInteger startedClasses = new AtomicInteger();
 
-	public FernflowerLogger(IOStringConsumer logger) {
+	public FernflowerLogger(IOStringConsumer logger, int totalClasses) {
 		this.logger = logger;
+		this.totalClasses = totalClasses;
 	}
 
 	@Override
@@ -65,6 +69,12 @@ public class FernflowerLogger extends IFernflowerLogger {
 	@Override
 	public void startClass(String className) {
 		write("Decompiling " + className);
+
+		try {
+			logger.progress(Math.min(startedClasses.incrementAndGet(), totalClasses), totalClasses);
+		} catch (IOException e) {
+			throw new RuntimeException("Failed to log", e);
+		}
 	}
 
 	@Override
@@ -26,16 +26,14 @@ package net.fabricmc.loom.decompilers.fernflower;
 
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.function.Supplier;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
@@ -46,17 +44,23 @@ import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.extern.IResultSaver;
 
 import net.fabricmc.fernflower.api.IFabricResultSaver;
+import net.fabricmc.loom.decompilers.LineMapWriter;
+import net.fabricmc.loom.decompilers.SourceEntryWriter;
 
 /**
  * Created by covers1624 on 18/02/19.
  */
 public class ThreadSafeResultSaver implements IResultSaver, IFabricResultSaver {
+	// Limits the sources waiting to be written, so that a slow writer does not hold every decompiled class in memory.
+	private static final int MAX_PENDING_ENTRIES = 64;
+
 	private final Supplier<File> output;
 	private final Supplier<File> lineMapFile;
+	private final Semaphore pendingEntries = new Semaphore(MAX_PENDING_ENTRIES);
 
 	public Map<String, ZipOutputStream> outputStreams = new HashMap<>();
 	public Map<String, ExecutorService> saveExecutors = new HashMap<>();
-	public PrintWriter lineMapWriter;
+	public LineMapWriter lineMapWriter;
 
 	public ThreadSafeResultSaver(Supplier<File> output, Supplier<File> lineMapFile) {
 		this.output = output;
@@ -79,7 +83,7 @@ public class ThreadSafeResultSaver implements IResultSaver, IFabricResultSaver {
 
 		if (lineMapFile.get() != null) {
 			try {
-				lineMapWriter = new PrintWriter(new FileWriter(lineMapFile.get()));
+				lineMapWriter = new LineMapWriter(lineMapFile.get().toPath());
 			} catch (IOException e) {
 				throw new RuntimeException("Unable to create line mapping file: " + lineMapFile.get(), e);
 			}
@@ -95,34 +99,43 @@ public class ThreadSafeResultSaver implements IResultSaver, IFabricResultSaver {
 	public void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, String content, int[] mapping) {
 		String key = path + "/" + archiveName;
 		ExecutorService executor = saveExecutors.get(key);
-		executor.submit(() -> {
-			ZipOutputStream zos = outputStreams.get(key);
 
-			try {
-				zos.putNextEntry(new ZipEntry(entryName));
+		try {
+			pendingEntries.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting to save " + entryName, e);
+		}
 
-				if (content != null) {
-					zos.write(content.getBytes(StandardCharsets.UTF_8));
-				}
-			} catch (IOException e) {
-				DecompilerContext.getLogger().writeMessage("Cannot write entry " + entryName, e);
+		executor.submit(() -> {
+			try {
+				writeClassEntry(key, qualifiedName, entryName, content, mapping);
+			} finally {
+				pendingEntries.release();
 			}
+		});
+	}
 
-			if (mapping != null && lineMapWriter != null) {
-				int maxLine = 0;
-				int maxLineDest = 0;
-				StringBuilder builder = new StringBuilder();
+	private void writeClassEntry(String key, String qualifiedName, String entryName, String content, int[] mapping) {
+		ZipOutputStream zos = outputStreams.get(key);
 
-				for (int i = 0; i < mapping.length; i += 2) {
-					maxLine = Math.max(maxLine, mapping[i]);
-					maxLineDest = Math.max(maxLineDest, mapping[i + 1]);
-					builder.append("\t").append(mapping[i]).append("\t").append(mapping[i + 1]).append("\n");
-				}
+		try {
+			zos.putNextEntry(new ZipEntry(entryName));
 
-				lineMapWriter.println(qualifiedName + "\t" + maxLine + "\t" + maxLineDest);
-				lineMapWriter.println(builder.toString());
+			if (content != null) {
+				SourceEntryWriter.write(content, zos);
 			}
-		});
+		} catch (IOException e) {
+			DecompilerContext.getLogger().writeMessage("Cannot write entry " + entryName, e);
+		}
+
+		if (mapping != null && lineMapWriter != null) {
+			try {
+				lineMapWriter.writeClass(qualifiedName, mapping, mapping.length);
+			} catch (IOException e) {
+				DecompilerContext.getLogger().writeMessage("Cannot write line mapping of " + qualifiedName, e);
+			}
+		}
 	}
 
 	@Override
@@ -150,8 +163,11 @@ public class ThreadSafeResultSaver implements IResultSaver, IFabricResultSaver {
 		saveExecutors.remove(key);
 
 		if (lineMapWriter != null) {
-			lineMapWriter.flush();
-			lineMapWriter.close();
+			try {
+				lineMapWriter.close();
+			} catch (IOException e) {
+				throw new RuntimeException("Unable to close line mapping file", e);
+			}
 		}
 	}
 
@@ -24,10 +24,7 @@
 
 package net.fabricmc.loom.decompilers.fernflower;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -38,29 +35,25 @@ import org.jetbrains.java.decompiler.struct.StructRecordComponent;
 import org.objectweb.asm.Opcodes;
 
 import net.fabricmc.fernflower.api.IFabricJavadocProvider;
-import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
-import net.fabricmc.mappingio.MappingReader;
-import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
-import net.fabricmc.mappingio.tree.MappingTree;
-import net.fabricmc.mappingio.tree.MemoryMappingTree;
+import net.fabricmc.loom.decompilers.JavadocIndex;
 
 public class TinyJavadocProvider implements IFabricJavadocProvider {
-	private final MappingTree mappingTree;
+	private final JavadocIndex javadocIndex;
 
-	public TinyJavadocProvider(File tinyFile) {
-		mappingTree = readMappings(tinyFile);
+	public TinyJavadocProvider(File javadocIndex) {
+		this.javadocIndex = JavadocIndex.get(javadocIndex.toPath());
 	}
 
 	@Override
 	public String getClassDoc(StructClass structClass) {
-		MappingTree.ClassMapping classMapping = mappingTree.getClass(structClass.qualifiedName);
+		JavadocIndex.ClassDoc classDoc = javadocIndex.getClass(structClass.qualifiedName);
 
-		if (classMapping == null) {
+		if (classDoc == null) {
 			return null;
 		}
 
 		if (!isRecord(structClass)) {
-			return classMapping.getComment();
+			return classDoc.comment();
 		}
 
 		/**
@@ -70,30 +63,24 @@ public class TinyJavadocProvider implements IFabricJavadocProvider {
 		 */
 		List<String> parts = new ArrayList<>();
 
-		if (classMapping.getComment() != null) {
-			parts.add(classMapping.getComment());
+		if (classDoc.comment() != null) {
+			parts.add(classDoc.comment());
 		}
 
 		boolean addedParam = false;
 
 		for (StructRecordComponent component : structClass.getRecordComponents()) {
 			// The component will always match the field name and descriptor
-			MappingTree.FieldMapping fieldMapping = classMapping.getField(component.getName(), component.getDescriptor());
-
-			if (fieldMapping == null) {
-				continue;
-			}
-
-			String comment = fieldMapping.getComment();
+			String comment = classDoc.getFieldComment(component.getName(), component.getDescriptor());
 
 			if (comment != null) {
-				if (!addedParam && classMapping.getComment() != null) {
+				if (!addedParam && classDoc.comment() != null) {
 					//Add a blank line before components when the class has a comment
 					parts.add("");
 					addedParam = true;
 				}
 
-				parts.add(String.format("@param %s %s", fieldMapping.getName(MappingsNamespace.NAMED.toString()), comment));
+				parts.add(String.format("@param %s %s", component.getName(), comment));
 			}
 		}
 
@@ -111,48 +98,38 @@ public class TinyJavadocProvider implements IFabricJavadocProvider {
 			return null;
 		}
 
-		MappingTree.ClassMapping classMapping = mappingTree.getClass(structClass.qualifiedName);
-
-		if (classMapping == null) {
-			return null;
-		}
-
-		MappingTree.FieldMapping fieldMapping = classMapping.getField(structField.getName(), structField.getDescriptor());
+		JavadocIndex.ClassDoc classDoc = javadocIndex.getClass(structClass.qualifiedName);
 
-		return fieldMapping != null ? fieldMapping.getComment() : null;
+		return classDoc != null ? classDoc.getFieldComment(structField.getName(), structField.getDescriptor()) : null;
 	}
 
 	@Override
 	public String getMethodDoc(StructClass structClass, StructMethod structMethod) {
-		MappingTree.ClassMapping classMapping = mappingTree.getClass(structClass.qualifiedName);
+		JavadocIndex.ClassDoc classDoc = javadocIndex.getClass(structClass.qualifiedName);
 
-		if (classMapping == null) {
+		if (classDoc == null) {
 			return null;
 		}
 
-		MappingTree.MethodMapping methodMapping = classMapping.getMethod(structMethod.getName(), structMethod.getDescriptor());
+		JavadocIndex.MethodDoc methodDoc = classDoc.getMethod(structMethod.getName(), structMethod.getDescriptor());
 
-		if (methodMapping != null) {
+		if (methodDoc != null) {
 			List<String> parts = new ArrayList<>();
 
-			if (methodMapping.getComment() != null) {
-				parts.add(methodMapping.getComment());
+			if (methodDoc.comment() != null) {
+				parts.add(methodDoc.comment());
 			}
 
 			boolean addedParam = false;
 
-			for (MappingTree.MethodArgMapping argMapping : methodMapping.getArgs()) {
-				String comment = argMapping.getComment();
-
-				if (comment != null) {
-					if (!addedParam && methodMapping.getComment() != null) {
-						//Add a blank line before params when the method has a comment
-						parts.add("");
-						addedParam = true;
-					}
-
-					parts.add(String.format("@param %s %s", argMapping.getName(MappingsNamespace.NAMED.toString()), comment));
+			for (JavadocIndex.ParamDoc param : methodDoc.params()) {
+				if (!addedParam && methodDoc.comment() != null) {
+					//Add a blank line before params when the method has a comment
+					parts.add("");
+					addedParam = true;
 				}
+
+				parts.add(String.format("@param %s %s", param.name(), param.comment()));
 			}
 
 			if (parts.isEmpty()) {
@@ -165,18 +142,6 @@ public class TinyJavadocProvider implements IFabricJavadocProvider {
 		return null;
 	}
 
-	private static MappingTree readMappings(File input) {
-		try (BufferedReader reader = Files.newBufferedReader(input.toPath())) {
-			MemoryMappingTree mappingTree = new MemoryMappingTree();
-			MappingSourceNsSwitch nsSwitch = new MappingSourceNsSwitch(mappingTree, MappingsNamespace.NAMED.toString());
-			MappingReader.read(reader, nsSwitch);
-
-			return mappingTree;
-		} catch (IOException e) {
-			throw new RuntimeException("Failed to read mappings", e);
-		}
-	}
-
 	public static boolean isRecord(StructClass structClass) {
 		return (structClass.getAccessFlags() & Opcodes.ACC_RECORD) != 0;
 	}
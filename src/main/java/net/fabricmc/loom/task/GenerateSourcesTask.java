@@ -27,30 +27,43 @@ package net.fabricmc.loom.task;
 import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.Serializable;
 import java.io.UncheckedIOException;
-import java.io.Writer;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.inject.Inject;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.InputFile;
 import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.OutputFiles;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.work.DisableCachingByDefault;
 import org.gradle.workers.WorkAction;
@@ -67,23 +80,27 @@ import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.accesswidener.TransitiveAccessWidenerMappingsProcessor;
 import net.fabricmc.loom.configuration.ifaceinject.InterfaceInjectionProcessor;
 import net.fabricmc.loom.configuration.processors.ModJavadocProcessor;
+import net.fabricmc.loom.configuration.providers.mappings.MappingsProviderImpl;
+import net.fabricmc.loom.decompilers.JavadocIndex;
 import net.fabricmc.loom.decompilers.LineNumberRemapper;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.IOStringConsumer;
 import net.fabricmc.loom.util.OperatingSystem;
+import net.fabricmc.loom.util.gradle.IdleWorkerReaper;
 import net.fabricmc.loom.util.gradle.ThreadedProgressLoggerConsumer;
-import net.fabricmc.loom.util.gradle.ThreadedSimpleProgressLogger;
 import net.fabricmc.loom.util.gradle.WorkerDaemonClientsManagerHelper;
 import net.fabricmc.loom.util.ipc.IPCClient;
 import net.fabricmc.loom.util.ipc.IPCServer;
 import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
-import net.fabricmc.mappingio.format.Tiny2Writer;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 @DisableCachingByDefault
 public abstract class GenerateSourcesTask extends AbstractLoomTask {
+	// Other projects using the same mappings may still be decompiling with an older index.
+	private static final Duration JAVADOC_INDEX_MAX_UNUSED_AGE = Duration.ofDays(1);
+
 	private final DecompilerOptions decompilerOptions;
 
 	/**
@@ -104,6 +121,13 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	@OutputFile
 	public abstract RegularFileProperty getOutputJar();
 
+	/**
+	 * Additional jars to decompile concurrently with the input jar, in the same worker JVM and sharing its mappings and classpath.
+	 * Used to decompile the common and client only jars together when the environment source sets are split.
+	 */
+	@Internal
+	public abstract ListProperty<DecompileTarget> getAdditionalTargets();
+
 	@Inject
 	public abstract WorkerExecutor getWorkerExecutor();
 
@@ -116,11 +140,19 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 
 		getOutputs().upToDateWhen((o) -> false);
 		getClasspath().from(decompilerOptions.getClasspath()).finalizeValueOnRead();
+		getAdditionalTargets().finalizeValueOnRead();
 		dependsOn(decompilerOptions.getClasspath().getBuiltBy());
 
 		getOutputJar().fileProvider(getProject().provider(() -> getMappedJarFileWithSuffix("-sources.jar")));
 	}
 
+	@OutputFiles
+	public List<File> getAdditionalOutputJars() {
+		return getAdditionalTargets().get().stream()
+				.map(target -> getMappedJarFileWithSuffix(target.runtimeJar(), "-sources.jar"))
+				.toList();
+	}
+
 	@TaskAction
 	public void run() throws IOException {
 		if (!OperatingSystem.is64Bit()) {
@@ -149,18 +181,21 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	}
 
 	private void doWork(@Nullable IPCServer ipcServer) {
-		final String jvmMarkerValue = UUID.randomUUID().toString();
+		final boolean reuseWorker = useProcessIsolation() && decompilerOptions.getReuseWorker().get();
+		final String jvmMarkerValue = reuseWorker ? getReusableWorkerMarker() : UUID.randomUUID().toString();
+
+		if (reuseWorker) {
+			IdleWorkerReaper.cancelScheduledStop(jvmMarkerValue);
+		}
+
 		final WorkQueue workQueue = createWorkQueue(jvmMarkerValue);
 
 		workQueue.submit(DecompileAction.class, params -> {
 			params.getDecompilerOptions().set(decompilerOptions.toDto());
 
-			params.getInputJar().set(getInputJar());
-			params.getRuntimeJar().set(getRuntimeJar());
-			params.getSourcesDestinationJar().set(getOutputJar());
-			params.getLinemap().set(getMappedJarFileWithSuffix("-sources.lmap"));
-			params.getLinemapJar().set(getMappedJarFileWithSuffix("-linemapped.jar"));
-			params.getMappings().set(getMappings().toFile());
+			params.getJobs().set(getDecompileJobs());
+			params.getJavadocIndex().set(getJavadocIndex().toFile());
+			params.getRetainCaches().set(reuseWorker);
 
 			if (ipcServer != null) {
 				params.getIPCPath().set(ipcServer.getPath().toFile());
@@ -172,7 +207,11 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		try {
 			workQueue.await();
 		} finally {
-			if (ipcServer != null) {
+			if (reuseWorker) {
+				// Keep the JVM warm for the next decompile, it is stopped once it has been idle for too long.
+				final Duration idleTimeout = Duration.ofMinutes(decompilerOptions.getWorkerIdleTimeout().get());
+				IdleWorkerReaper.stopIdleJVMAfter(getWorkerDaemonClientsManager(), jvmMarkerValue, idleTimeout);
+			} else if (ipcServer != null) {
 				boolean stopped = WorkerDaemonClientsManagerHelper.stopIdleJVM(getWorkerDaemonClientsManager(), jvmMarkerValue);
 
 				if (!stopped && ipcServer.hasReceivedMessage()) {
@@ -182,6 +221,27 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		}
 	}
 
+	private List<DecompileJob> getDecompileJobs() {
+		final List<DecompileJob> jobs = new ArrayList<>();
+		jobs.add(createDecompileJob(getInputJar().get().getAsFile(), getRuntimeJar().get().getAsFile(), getOutputJar().get().getAsFile()));
+
+		for (DecompileTarget target : getAdditionalTargets().get()) {
+			jobs.add(createDecompileJob(target.inputJar(), target.runtimeJar(), getMappedJarFileWithSuffix(target.runtimeJar(), "-sources.jar")));
+		}
+
+		return jobs;
+	}
+
+	private static DecompileJob createDecompileJob(File inputJar, File runtimeJar, File sourcesDestinationJar) {
+		return new DecompileJob(
+				inputJar,
+				runtimeJar,
+				sourcesDestinationJar,
+				getMappedJarFileWithSuffix(runtimeJar, "-sources.lmap"),
+				getMappedJarFileWithSuffix(runtimeJar, "-linemapped.jar")
+		);
+	}
+
 	private WorkQueue createWorkQueue(String jvmMarkerValue) {
 		if (!useProcessIsolation()) {
 			return getWorkerExecutor().classLoaderIsolation(spec -> {
@@ -191,27 +251,55 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 
 		return getWorkerExecutor().processIsolation(spec -> {
 			spec.forkOptions(forkOptions -> {
-				forkOptions.setMaxHeapSize(String.format(Locale.ENGLISH, "%dm", decompilerOptions.getMemory().get()));
+				forkOptions.setMaxHeapSize(String.format(Locale.ENGLISH, "%dm", getWorkerMemory()));
 				forkOptions.systemProperty(WorkerDaemonClientsManagerHelper.MARKER_PROP, jvmMarkerValue);
 			});
 			spec.getClasspath().from(getClasspath());
 		});
 	}
 
+	/**
+	 * Workers can only be reused when started with the same classpath and JVM args, so they are identified by a hash of them.
+	 */
+	private String getReusableWorkerMarker() {
+		final Hasher hasher = Hashing.sha256().newHasher();
+		hasher.putString(decompilerOptions.getDecompilerClassName().get(), StandardCharsets.UTF_8);
+		hasher.putLong(getWorkerMemory());
+
+		for (File file : getClasspath().getFiles()) {
+			hasher.putString(file.getAbsolutePath(), StandardCharsets.UTF_8);
+			hasher.putLong(file.lastModified());
+		}
+
+		return "reusable-" + hasher.hash();
+	}
+
+	private long getWorkerMemory() {
+		// The memory option is the heap of the whole worker, jars decompiled together share it as they share the threads.
+		return decompilerOptions.getMemory().get();
+	}
+
 	private boolean useProcessIsolation() {
 		// Useful if you want to debug the decompiler, make sure you run gradle with enough memory.
 		return !Boolean.getBoolean("spruce.loom.genSources.debug");
 	}
 
+	/**
+	 * An additional jar to decompile, see {@link #getAdditionalTargets()}.
+	 *
+	 * @param inputJar The jar to decompile, can be the unpick jar
+	 * @param runtimeJar The jar used at runtime
+	 */
+	public record DecompileTarget(File inputJar, File runtimeJar) implements Serializable { }
+
+	public record DecompileJob(File inputJar, File runtimeJar, File sourcesDestinationJar, File linemap, File linemapJar) implements Serializable { }
+
 	public interface DecompileParams extends WorkParameters {
 		Property<DecompilerOptions.Dto> getDecompilerOptions();
 
-		RegularFileProperty getInputJar();
-		RegularFileProperty getRuntimeJar();
-		RegularFileProperty getSourcesDestinationJar();
-		RegularFileProperty getLinemap();
-		RegularFileProperty getLinemapJar();
-		RegularFileProperty getMappings();
+		ListProperty<DecompileJob> getJobs();
+		RegularFileProperty getJavadocIndex();
+		Property<Boolean> getRetainCaches();
 
 		RegularFileProperty getIPCPath();
 
@@ -230,20 +318,72 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 			final Path ipcPath = getParameters().getIPCPath().get().getAsFile().toPath();
 
 			try (IPCClient ipcClient = new IPCClient(ipcPath)) {
-				doDecompile(new ThreadedSimpleProgressLogger(ipcClient));
+				doDecompile(ipcClient);
+
+				// Close the decompile loggers
+				ipcClient.closeLoggers();
 			} catch (Exception e) {
 				throw new RuntimeException("Failed to decompile", e);
 			}
 		}
 
 		private void doDecompile(IOStringConsumer logger) {
-			final Path inputJar = getParameters().getInputJar().get().getAsFile().toPath();
-			final Path sourcesDestinationJar = getParameters().getSourcesDestinationJar().get().getAsFile().toPath();
-			final Path linemap = getParameters().getLinemap().get().getAsFile().toPath();
-			final Path linemapJar = getParameters().getLinemapJar().get().getAsFile().toPath();
-			final Path runtimeJar = getParameters().getRuntimeJar().get().getAsFile().toPath();
-
 			final DecompilerOptions.Dto decompilerOptions = getParameters().getDecompilerOptions().get();
+			final List<DecompileJob> jobs = getParameters().getJobs().get();
+			final Path javadocIndex = getParameters().getJavadocIndex().get().getAsFile().toPath();
+			final Collection<Path> libraries = getLibraries();
+
+			// Jars decompiled concurrently share the thread budget.
+			final int threadsPerJob = Math.max(1, decompilerOptions.maxThreads() / jobs.size());
+
+			try {
+				if (jobs.size() == 1) {
+					decompile(jobs.get(0), decompilerOptions, threadsPerJob, javadocIndex, libraries, logger);
+				} else {
+					decompileConcurrently(jobs, decompilerOptions, threadsPerJob, javadocIndex, libraries, logger);
+				}
+			} finally {
+				if (getParameters().getRetainCaches().get()) {
+					JavadocIndex.retain(javadocIndex);
+				} else {
+					JavadocIndex.clear();
+				}
+			}
+		}
+
+		private void decompileConcurrently(List<DecompileJob> jobs, DecompilerOptions.Dto decompilerOptions, int threads, Path javadocIndex, Collection<Path> libraries, IOStringConsumer logger) {
+			final ExecutorService executor = Executors.newFixedThreadPool(jobs.size());
+
+			try {
+				final List<Future<?>> futures = new ArrayList<>();
+
+				for (DecompileJob job : jobs) {
+					futures.add(executor.submit(() -> decompile(job, decompilerOptions, threads, javadocIndex, libraries, logger)));
+				}
+
+				for (Future<?> future : futures) {
+					future.get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted while decompiling", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException runtimeException) {
+					throw runtimeException;
+				}
+
+				throw new RuntimeException("Failed to decompile", e.getCause());
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+
+		private void decompile(DecompileJob job, DecompilerOptions.Dto decompilerOptions, int threads, Path javadocIndex, Collection<Path> libraries, IOStringConsumer logger) {
+			final Path inputJar = job.inputJar().toPath();
+			final Path sourcesDestinationJar = job.sourcesDestinationJar().toPath();
+			final Path linemap = job.linemap().toPath();
+			final Path linemapJar = job.linemapJar().toPath();
+			final Path runtimeJar = job.runtimeJar().toPath();
 
 			final LoomDecompiler decompiler;
 
@@ -258,9 +398,9 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 			}
 
 			DecompilationMetadata metadata = new DecompilationMetadata(
-					decompilerOptions.maxThreads(),
-					getParameters().getMappings().get().getAsFile().toPath(),
-					getLibraries(),
+					threads,
+					javadocIndex,
+					libraries,
 					logger,
 					decompilerOptions.options()
 			);
@@ -272,13 +412,6 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 					metadata
 			);
 
-			// Close the decompile loggers
-			try {
-				metadata.logger().accept(ThreadedProgressLoggerConsumer.CLOSE_LOGGERS);
-			} catch (IOException e) {
-				throw new UncheckedIOException("Failed to close loggers", e);
-			}
-
 			if (Files.exists(linemap)) {
 				try {
 					// Line map the actually jar used to run the game, not the one used to decompile
@@ -308,7 +441,11 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	}
 
 	private File getMappedJarFileWithSuffix(String suffix) {
-		String path = getRuntimeJar().get().getAsFile().getAbsolutePath();
+		return getMappedJarFileWithSuffix(getRuntimeJar().get().getAsFile(), suffix);
+	}
+
+	private static File getMappedJarFileWithSuffix(File runtimeJar, String suffix) {
+		String path = runtimeJar.getAbsolutePath();
 
 		if (!path.toLowerCase(Locale.ROOT).endsWith(".jar")) {
 			throw new RuntimeException("Invalid mapped JAR path: " + path);
@@ -317,17 +454,9 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		return new File(path.substring(0, path.length() - 4) + suffix);
 	}
 
-	private Path getMappings() {
-		Path inputMappings = getExtension().getMappingsProvider().tinyMappings;
-
-		MemoryMappingTree mappingTree = new MemoryMappingTree();
-
-		try (Reader reader = Files.newBufferedReader(inputMappings, StandardCharsets.UTF_8)) {
-			MappingReader.read(reader, new MappingSourceNsSwitch(mappingTree, MappingsNamespace.INTERMEDIARY.toString()));
-		} catch (IOException e) {
-			throw new RuntimeException("Failed to read mappings", e);
-		}
-
+	private Path getJavadocIndex() {
+		final MappingsProviderImpl mappingsProvider = getExtension().getMappingsProvider();
+		final Path inputMappings = mappingsProvider.tinyMappings;
 		final List<MappingsProcessor> mappingsProcessors = new ArrayList<>();
 
 		if (getExtension().getEnableTransitiveAccessWideners().get()) {
@@ -344,42 +473,90 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 			mappingsProcessors.add(javadocProcessor);
 		}
 
-		if (mappingsProcessors.isEmpty()) {
-			return inputMappings;
-		}
+		// Only the processors that change the mappings contribute to the index, and are part of its identity.
+		final List<MappingsProcessor> activeProcessors = new ArrayList<>();
+		final Hasher hasher = Hashing.sha256().newHasher();
 
-		boolean transformed = false;
+		try {
+			hasher.putLong(Files.size(inputMappings));
+			hasher.putLong(Files.getLastModifiedTime(inputMappings).toMillis());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read mappings attributes", e);
+		}
 
 		for (MappingsProcessor mappingsProcessor : mappingsProcessors) {
-			if (mappingsProcessor.transform(mappingTree)) {
-				transformed = true;
+			final String mappingsId = mappingsProcessor.getMappingsId();
+
+			if (mappingsId != null) {
+				activeProcessors.add(mappingsProcessor);
+				hasher.putString(mappingsId, StandardCharsets.UTF_8);
 			}
 		}
 
-		if (!transformed) {
-			return inputMappings;
+		final Path javadocIndex = mappingsProvider.mappingsWorkingDir().resolve("javadoc").resolve(hasher.hash().toString().substring(0, 16) + ".idx");
+
+		if (Files.exists(javadocIndex)) {
+			try {
+				// Marks the index as in use, so that it is not deleted by another project writing its own index.
+				Files.setLastModifiedTime(javadocIndex, FileTime.from(Instant.now()));
+			} catch (IOException e) {
+				getProject().getLogger().debug("Failed to update the modification time of the javadoc index", e);
+			}
+
+			return javadocIndex;
 		}
 
-		final Path outputMappings;
+		MemoryMappingTree mappingTree = new MemoryMappingTree();
 
-		try {
-			outputMappings = Files.createTempFile("loom-transitive-mappings", ".tiny");
+		try (Reader reader = Files.newBufferedReader(inputMappings, StandardCharsets.UTF_8)) {
+			MappingReader.read(reader, new MappingSourceNsSwitch(mappingTree, MappingsNamespace.INTERMEDIARY.toString()));
 		} catch (IOException e) {
-			throw new RuntimeException("Failed to create temp file", e);
+			throw new RuntimeException("Failed to read mappings", e);
+		}
+
+		for (MappingsProcessor mappingsProcessor : activeProcessors) {
+			mappingsProcessor.transform(mappingTree);
 		}
 
-		try (Writer writer = Files.newBufferedWriter(outputMappings, StandardCharsets.UTF_8)) {
-			Tiny2Writer tiny2Writer = new Tiny2Writer(writer, false);
-			mappingTree.accept(new MappingSourceNsSwitch(tiny2Writer, MappingsNamespace.NAMED.toString()));
+		try {
+			Files.createDirectories(javadocIndex.getParent());
+			JavadocIndex.write(mappingTree, MappingsNamespace.NAMED.toString(), javadocIndex);
 		} catch (IOException e) {
-			throw new RuntimeException("Failed to write mappings", e);
+			throw new UncheckedIOException("Failed to write javadoc index", e);
 		}
 
-		return outputMappings;
+		deleteOtherJavadocIndexes(javadocIndex);
+		return javadocIndex;
+	}
+
+	/**
+	 * Deletes the indexes of older mappings or processors, keeping those used recently as other projects may share the directory.
+	 */
+	private void deleteOtherJavadocIndexes(Path javadocIndex) {
+		final Instant threshold = Instant.now().minus(JAVADOC_INDEX_MAX_UNUSED_AGE);
+
+		try (Stream<Path> files = Files.list(javadocIndex.getParent())) {
+			for (Path file : files.filter(path -> path.getFileName().toString().endsWith(".idx") && !path.equals(javadocIndex)).toList()) {
+				if (Files.getLastModifiedTime(file).toInstant().isBefore(threshold)) {
+					Files.deleteIfExists(file);
+				}
+			}
+		} catch (IOException e) {
+			// A worker may still have an old index mapped, it is removed next time.
+			getProject().getLogger().debug("Failed to delete unused javadoc indexes", e);
+		}
 	}
 
 	public interface MappingsProcessor {
 		boolean transform(MemoryMappingTree mappings);
+
+		/**
+		 * Identifies the changes made to the mappings, used to key the javadoc index.
+		 *
+		 * @return the id, or null when the mappings would not be changed
+		 */
+		@Nullable
+		String getMappingsId();
 	}
 
 	private static Constructor<LoomDecompiler> getDecompilerConstructor(String clazz) {
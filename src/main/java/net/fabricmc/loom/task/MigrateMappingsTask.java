@@ -26,12 +26,29 @@ package net.fabricmc.loom.task;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.commons.io.FileUtils;
 import org.cadixdev.lorenz.MappingSet;
 import org.cadixdev.mercury.Mercury;
 import org.cadixdev.mercury.remapper.MercuryRemapper;
@@ -53,6 +70,7 @@ import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.api.mappings.layered.spec.LayeredMappingSpecBuilder;
 import net.fabricmc.loom.configuration.providers.mappings.LayeredMappingsDependency;
 import net.fabricmc.loom.configuration.providers.mappings.MappingsProviderImpl;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.SourceRemapper;
 import net.fabricmc.lorenztiny.TinyMappingsJoiner;
@@ -61,6 +79,12 @@ import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 @DisableCachingByDefault(because = "Always rerun this task.")
 public abstract class MigrateMappingsTask extends AbstractLoomTask {
+	private static final String CACHE_DIRECTORY = "migrate-mappings";
+	// Bumped when the way sources are remapped changes.
+	private static final int CACHE_VERSION = 2;
+	// Small enough that an interrupted migration keeps most of its work.
+	private static final int PARTITION_SIZE = 200;
+
 	private Path inputDir;
 	private Path outputDir;
 	private String mappings;
@@ -110,7 +134,8 @@ public abstract class MigrateMappingsTask extends AbstractLoomTask {
 		try {
 			MemoryMappingTree currentMappings = mappingsProvider.getMappings();
 			MemoryMappingTree targetMappings = getMappings(mappings);
-			migrateMappings(project, extension, inputDir, outputDir, currentMappings, targetMappings);
+			String mappingsKey = getMappingsKey(mappingsProvider.tinyMappings, mappings.toPath());
+			migrateMappings(project, extension, inputDir, outputDir, currentMappings, targetMappings, mappingsKey);
 			project.getLogger().lifecycle(":remapped project written to " + outputDir.toAbsolutePath());
 		} catch (IOException e) {
 			throw new IllegalArgumentException("Error while loading mappings", e);
@@ -156,6 +181,21 @@ public abstract class MigrateMappingsTask extends AbstractLoomTask {
 		return Iterables.getOnlyElement(files);
 	}
 
+	/**
+	 * The key of the mappings on both sides, combined with the hashes of the source files to key the per file cache.
+	 */
+	private String getMappingsKey(Path currentMappings, Path targetMappings) throws IOException {
+		final JavaVersion javaVersion = getProject().getExtensions().getByType(JavaPluginExtension.class).getSourceCompatibility();
+
+		return Hashing.sha256().newHasher()
+				.putInt(CACHE_VERSION)
+				.putString(Checksum.sha256Hex(currentMappings), StandardCharsets.UTF_8)
+				.putString(Checksum.sha256Hex(targetMappings), StandardCharsets.UTF_8)
+				.putString(javaVersion.toString(), StandardCharsets.UTF_8)
+				.hash()
+				.toString();
+	}
+
 	private static MemoryMappingTree getMappings(File mappings) throws IOException {
 		MemoryMappingTree mappingTree = new MemoryMappingTree();
 
@@ -167,20 +207,45 @@ public abstract class MigrateMappingsTask extends AbstractLoomTask {
 	}
 
 	private static void migrateMappings(Project project, LoomGradleExtension extension,
-										Path inputDir, Path outputDir, MemoryMappingTree currentMappings, MemoryMappingTree targetMappings
+										Path inputDir, Path outputDir, MemoryMappingTree currentMappings, MemoryMappingTree targetMappings, String mappingsKey
 	) throws IOException {
-		project.getLogger().info(":joining mappings");
+		final Map<Path, String> fileHashes = new LinkedHashMap<>();
 
-		MappingSet mappingSet = new TinyMappingsJoiner(
-				currentMappings, MappingsNamespace.NAMED.toString(),
-				targetMappings, MappingsNamespace.NAMED.toString(),
-				MappingsNamespace.INTERMEDIARY.toString()
-		).read();
+		try (Stream<Path> files = Files.walk(inputDir)) {
+			for (Path file : files.filter(path -> Files.isRegularFile(path) && path.getFileName().toString().endsWith(".java")).sorted().toList()) {
+				fileHashes.put(inputDir.relativize(file), Checksum.sha256Hex(file));
+			}
+		}
+
+		// A source file is remapped against the whole source tree, the cache is only reused when no other file changed.
+		final Hasher treeHasher = Hashing.sha256().newHasher().putString(mappingsKey, StandardCharsets.UTF_8);
+		fileHashes.forEach((relative, hash) -> treeHasher.putString(relative.toString(), StandardCharsets.UTF_8).putString(hash, StandardCharsets.UTF_8));
+
+		final Path cacheDir = extension.getFiles().getProjectPersistentCache().toPath().resolve(CACHE_DIRECTORY).resolve(treeHasher.hash().toString());
+		final List<Path> pending = new ArrayList<>();
+		final int fileCount = fileHashes.size();
+
+		for (Map.Entry<Path, String> entry : fileHashes.entrySet()) {
+			final Path cached = cacheDir.resolve(entry.getValue() + ".java");
+
+			if (Files.exists(cached)) {
+				copy(cached, outputDir.resolve(entry.getKey().toString()));
+			} else {
+				pending.add(entry.getKey());
+			}
+		}
+
+		deleteOtherCaches(cacheDir);
+
+		if (pending.isEmpty()) {
+			project.getLogger().lifecycle(":all sources were migrated before");
+			return;
+		}
 
-		project.getLogger().lifecycle(":remapping");
-		Mercury mercury = SourceRemapper.createMercuryWithClassPath(project, false);
+		project.getLogger().info(":joining mappings");
 
 		final JavaVersion javaVersion = project.getExtensions().getByType(JavaPluginExtension.class).getSourceCompatibility();
+		final Mercury mercury = SourceRemapper.createMercuryWithClassPath(project, false);
 		mercury.setSourceCompatibility(javaVersion.toString());
 
 		for (Path intermediaryJar : extension.getMinecraftJars(MappingsNamespace.INTERMEDIARY)) {
@@ -191,15 +256,126 @@ public abstract class MigrateMappingsTask extends AbstractLoomTask {
 			mercury.getClassPath().add(intermediaryJar);
 		}
 
-		mercury.getProcessors().add(MercuryRemapper.create(mappingSet));
+		// The whole source tree is visible to every worker, so references to the classes of other partitions still resolve.
+		mercury.getSourcePath().add(inputDir);
+
+		final Queue<List<Path>> partitions = new ConcurrentLinkedQueue<>(Lists.partition(pending, PARTITION_SIZE));
+		final int workers = Math.min(partitions.size(), SourceRemapper.getMaxWorkers());
+
+		project.getLogger().lifecycle(":remapping {} of {} source files with {} workers", pending.size(), fileCount, workers);
+
+		final ExecutorService executor = Executors.newFixedThreadPool(workers);
 
 		try {
-			mercury.rewrite(inputDir, outputDir);
-		} catch (Exception e) {
-			project.getLogger().warn("Could not remap fully!", e);
+			final List<Future<?>> futures = new ArrayList<>();
+
+			for (int i = 0; i < workers; i++) {
+				// Mercury and lorenz mapping sets are not thread safe, each worker has its own sharing the classpath of the first.
+				final Mercury workerMercury = i == 0 ? mercury : copyMercury(mercury, javaVersion);
+
+				futures.add(executor.submit(() -> {
+					workerMercury.getProcessors().add(MercuryRemapper.create(joinMappings(currentMappings, targetMappings)));
+					List<Path> partition;
+
+					while ((partition = partitions.poll()) != null) {
+						migratePartition(project, workerMercury, inputDir, outputDir, cacheDir, partition, fileHashes);
+					}
+
+					return null;
+				}));
+			}
+
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Failed to remap sources", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while remapping sources", e);
+		} finally {
+			executor.shutdownNow();
 		}
 
 		project.getLogger().info(":cleaning file descriptors");
 		System.gc();
 	}
+
+	private static void migratePartition(Project project, Mercury mercury, Path inputDir, Path outputDir, Path cacheDir, List<Path> partition, Map<Path, String> fileHashes) throws IOException {
+		final Path partitionInput = Files.createTempDirectory("loom-migrate-input");
+		final Path partitionOutput = Files.createTempDirectory("loom-migrate-output");
+
+		try {
+			for (Path relative : partition) {
+				copy(inputDir.resolve(relative), partitionInput.resolve(relative.toString()));
+			}
+
+			boolean complete = true;
+
+			try {
+				mercury.rewrite(partitionInput, partitionOutput);
+			} catch (Exception e) {
+				project.getLogger().warn("Could not remap fully!", e);
+				complete = false;
+			}
+
+			for (Path relative : partition) {
+				final Path remapped = partitionOutput.resolve(relative.toString());
+
+				if (!Files.exists(remapped)) {
+					continue;
+				}
+
+				copy(remapped, outputDir.resolve(relative.toString()));
+
+				// A partial remap is not cached, so that the next migration tries again.
+				if (complete) {
+					copy(remapped, cacheDir.resolve(fileHashes.get(relative) + ".java"));
+				}
+			}
+		} finally {
+			FileUtils.deleteQuietly(partitionInput.toFile());
+			FileUtils.deleteQuietly(partitionOutput.toFile());
+		}
+	}
+
+	private static MappingSet joinMappings(MemoryMappingTree currentMappings, MemoryMappingTree targetMappings) {
+		return new TinyMappingsJoiner(
+				currentMappings, MappingsNamespace.NAMED.toString(),
+				targetMappings, MappingsNamespace.NAMED.toString(),
+				MappingsNamespace.INTERMEDIARY.toString()
+		).read();
+	}
+
+	private static Mercury copyMercury(Mercury mercury, JavaVersion javaVersion) {
+		final Mercury copy = new Mercury();
+		copy.setGracefulClasspathChecks(true);
+		copy.setSourceCompatibility(javaVersion.toString());
+		copy.getClassPath().addAll(mercury.getClassPath());
+		copy.getSourcePath().addAll(mercury.getSourcePath());
+		return copy;
+	}
+
+	/**
+	 * Copies a file, moving it into place once complete so that an interrupted migration never leaves a partial file.
+	 */
+	private static void copy(Path from, Path to) throws IOException {
+		Files.createDirectories(to.getParent());
+		final Path tempFile = Files.createTempFile(to.getParent(), to.getFileName().toString(), ".tmp");
+		Files.copy(from, tempFile, StandardCopyOption.REPLACE_EXISTING);
+		Files.move(tempFile, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void deleteOtherCaches(Path cacheDir) throws IOException {
+		if (!Files.isDirectory(cacheDir.getParent())) {
+			return;
+		}
+
+		// Only the migration to the latest mappings is kept.
+		try (Stream<Path> caches = Files.list(cacheDir.getParent())) {
+			for (Path cache : caches.filter(path -> !path.equals(cacheDir)).toList()) {
+				FileUtils.deleteQuietly(cache.toFile());
+			}
+		}
+	}
 }
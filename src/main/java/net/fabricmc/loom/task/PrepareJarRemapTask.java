@@ -24,8 +24,6 @@
 
 package net.fabricmc.loom.task;
 
-import java.nio.file.Path;
-
 import javax.inject.Inject;
 
 import org.gradle.api.file.RegularFileProperty;
@@ -39,10 +37,11 @@ import org.gradle.workers.WorkerExecutor;
 
 import net.fabricmc.loom.task.service.TinyRemapperService;
 import net.fabricmc.loom.util.service.UnsafeWorkQueueHelper;
-import net.fabricmc.tinyremapper.TinyRemapper;
 
 /**
  * The prepare remap task runs before all other jar remap tasks, should be used to setup tiny remapper.
+ *
+ * <p>The input is only registered with the shared remapper, it is read once the first jar is remapped.
  */
 public abstract class PrepareJarRemapTask extends AbstractLoomTask {
 	private final RemapJarTask remapJarTask;
@@ -54,7 +53,7 @@ public abstract class PrepareJarRemapTask extends AbstractLoomTask {
 		this.remapJarTask = remapJarTask;
 
 		getInputFile().set(remapJarTask.getInputFile());
-		// TODO can this be up-to-date when the main task is up-to date?
+		// Always registers the input, reading it is deferred until a remap task actually runs.
 		getOutputs().upToDateWhen((o) -> false);
 
 		getProject().getGradle().allprojects(project -> {
@@ -97,10 +96,7 @@ public abstract class PrepareJarRemapTask extends AbstractLoomTask {
 
 		@Override
 		public void execute() {
-			final TinyRemapper tinyRemapper = tinyRemapperService.getTinyRemapperForInputs();
-			final Path inputFile = getParameters().getInputFile().getAsFile().get().toPath();
-
-			tinyRemapper.readInputsAsync(tinyRemapperService.getOrCreateTag(inputFile), inputFile);
+			tinyRemapperService.addInput(getParameters().getInputFile().getAsFile().get().toPath());
 		}
 	}
 }
@@ -24,71 +24,138 @@
 
 package net.fabricmc.loom.task;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.inject.Inject;
 
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFile;
 import org.gradle.api.tasks.InputFiles;
-import org.gradle.api.tasks.Internal;
-import org.gradle.api.tasks.JavaExec;
+import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+import org.objectweb.asm.ClassReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.configuration.providers.mappings.extras.unpick.UnpickConstantJars;
 import net.fabricmc.loom.extension.LoomFiles;
 import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.zip.RawZipFile;
+import net.fabricmc.loom.util.zip.RawZipWriter;
+
+/**
+ * Runs unpick over a jar in a worker JVM, which Gradle keeps alive and reuses for the following runs.
+ *
+ * <p>Only the classes that declare or call one of the target methods of the unpick definitions are given to unpick,
+ * every other entry is copied to the output jar as is.
+ *
+ * <p>This task used to extend {@code JavaExec}. The heap size and JVM arguments of the worker can still be set with
+ * {@link #getMaxHeapSize()} and {@link #getJvmArgs()}, other {@code JavaExec} properties such as the java launcher are not available.
+ */
+public abstract class UnpickJarTask extends AbstractLoomTask {
+	private static final String MAIN_CLASS = "daomephsta.unpick.cli.Main";
 
-public abstract class UnpickJarTask extends JavaExec {
 	@InputFile
 	public abstract RegularFileProperty getInputJar();
 
 	@InputFile
 	public abstract RegularFileProperty getUnpickDefinitions();
 
+	/**
+	 * The jars declaring the constants of the definitions, combined into a single constant jar when there are several.
+	 */
 	@InputFiles
-	// Only 1 file, but it comes from a configuration
 	public abstract ConfigurableFileCollection getConstantJar();
 
 	@InputFiles
 	public abstract ConfigurableFileCollection getUnpickClasspath();
 
+	/**
+	 * The classpath of unpick itself.
+	 */
+	@Classpath
+	public abstract ConfigurableFileCollection getUnpickRuntimeClasspath();
+
 	@OutputFile
 	public abstract RegularFileProperty getOutputJar();
 
+	/**
+	 * The maximum heap size of the worker JVM, such as {@code 2G}.
+	 */
+	@Input
+	@Optional
+	public abstract Property<String> getMaxHeapSize();
+
+	/**
+	 * Extra arguments of the worker JVM.
+	 */
+	@Input
+	public abstract ListProperty<String> getJvmArgs();
+
+	@Inject
+	protected abstract WorkerExecutor getWorkerExecutor();
+
 	@Inject
 	public UnpickJarTask() {
-		classpath(getProject().getConfigurations().getByName(Constants.Configurations.UNPICK_CLASSPATH));
-		getMainClass().set("daomephsta.unpick.cli.Main");
+		getUnpickRuntimeClasspath().from(getProject().getConfigurations().getByName(Constants.Configurations.UNPICK_CLASSPATH));
 
 		getConstantJar().setFrom(getProject().getConfigurations().getByName(Constants.Configurations.MAPPING_CONSTANTS));
 		getUnpickClasspath().setFrom(getProject().getConfigurations().getByName(Constants.Configurations.MINECRAFT_DEPENDENCIES));
 	}
 
-	@Override
-	public void exec() {
-		fileArg(getInputJar().get().getAsFile(), getOutputJar().get().getAsFile(), getUnpickDefinitions().get().getAsFile());
-		fileArg(getConstantJar().getSingleFile());
+	@TaskAction
+	public void run() {
+		writeUnpickLogConfig();
 
-		// Classpath
-		for (Path minecraftJar : getExtension().getMinecraftJars(MappingsNamespace.NAMED)) {
-			fileArg(minecraftJar.toFile());
-		}
+		final WorkQueue workQueue = getWorkerExecutor().processIsolation(spec -> {
+			spec.getClasspath().from(getUnpickRuntimeClasspath());
+			spec.forkOptions(forkOptions -> {
+				forkOptions.systemProperty("java.util.logging.config.file", getDirectories().getUnpickLoggingConfigFile().getAbsolutePath());
+				forkOptions.setMaxHeapSize(getMaxHeapSize().getOrNull());
+				forkOptions.jvmArgs(getJvmArgs().get());
+			});
+		});
 
-		for (File file : getUnpickClasspath()) {
-			fileArg(file);
-		}
+		workQueue.submit(UnpickAction.class, params -> {
+			params.getInputJar().set(getInputJar());
+			params.getOutputJar().set(getOutputJar());
+			params.getUnpickDefinitions().set(getUnpickDefinitions());
+			params.getConstantJars().from(getConstantJar());
 
-		writeUnpickLogConfig();
-		systemProperty("java.util.logging.config.file", getDirectories().getUnpickLoggingConfigFile().getAbsolutePath());
+			// Classpath
+			for (Path minecraftJar : getExtension().getMinecraftJars(MappingsNamespace.NAMED)) {
+				params.getClasspath().from(minecraftJar.toFile());
+			}
 
-		super.exec();
+			params.getClasspath().from(getUnpickClasspath());
+		});
 	}
 
 	private void writeUnpickLogConfig() {
@@ -100,18 +167,202 @@ public abstract class UnpickJarTask extends JavaExec {
 		}
 	}
 
-	private void fileArg(File... files) {
-		for (File file : files) {
-			args(file.getAbsolutePath());
-		}
+	private LoomFiles getDirectories() {
+		return getExtension().getFiles();
 	}
 
-	@Internal
-	protected LoomGradleExtension getExtension() {
-		return LoomGradleExtension.get(getProject());
+	public interface UnpickParams extends WorkParameters {
+		RegularFileProperty getInputJar();
+		RegularFileProperty getOutputJar();
+		RegularFileProperty getUnpickDefinitions();
+		ConfigurableFileCollection getConstantJars();
+		ConfigurableFileCollection getClasspath();
 	}
 
-	private LoomFiles getDirectories() {
-		return getExtension().getFiles();
+	public abstract static class UnpickAction implements WorkAction<UnpickParams> {
+		private static final Logger LOGGER = LoggerFactory.getLogger(UnpickAction.class);
+		// Directives of the v2 format that do not name a target method, the empty string being a blank line.
+		private static final Set<String> KNOWN_DIRECTIVES = Set.of("", "constant", "flag", "param", "return");
+
+		@Override
+		public void execute() {
+			final Path inputJar = getParameters().getInputJar().get().getAsFile().toPath();
+			final Path outputJar = getParameters().getOutputJar().get().getAsFile().toPath();
+			final Path definitions = getParameters().getUnpickDefinitions().get().getAsFile().toPath();
+			final List<Path> constantJars = getParameters().getConstantJars().getFiles().stream().map(File::toPath).toList();
+			final List<Path> classpath = getParameters().getClasspath().getFiles().stream().map(File::toPath).toList();
+
+			try {
+				unpickJar(inputJar, outputJar, definitions, constantJars, classpath);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to unpick " + inputJar, e);
+			}
+		}
+
+		/**
+		 * Unpicks the classes of the jar that may declare or call one of the target methods, and copies every other entry as is.
+		 */
+		@VisibleForTesting
+		public static void unpickJar(Path inputJar, Path outputJar, Path definitions, List<Path> constantJars, List<Path> classpath) throws IOException {
+			Path constantJar = null;
+
+			try {
+				constantJar = constantJars.size() == 1 ? constantJars.get(0) : combineConstantJars(constantJars);
+				final Map<String, Set<String>> targetMethods = readTargetMethods(definitions);
+
+				if (targetMethods == null) {
+					// Unknown definitions, every class may be changed.
+					unpick(inputJar, outputJar, inputJar, definitions, constantJar, classpath);
+					return;
+				}
+
+				unpickTargetClasses(inputJar, outputJar, definitions, constantJar, classpath, targetMethods);
+			} finally {
+				if (constantJar != null && constantJars.size() != 1) {
+					try {
+						Files.deleteIfExists(constantJar);
+					} catch (IOException e) {
+						LOGGER.debug("Failed to delete the combined constant jar", e);
+					}
+				}
+			}
+		}
+
+		private static Path combineConstantJars(List<Path> constantJars) throws IOException {
+			final Path combined = Files.createTempFile("loom-unpick-constants", ".jar");
+			UnpickConstantJars.combine(constantJars, combined);
+			return combined;
+		}
+
+		private static void unpickTargetClasses(Path inputJar, Path outputJar, Path definitions, Path constantJar, List<Path> classpath, Map<String, Set<String>> targetMethods) throws IOException {
+			final Path targetInput = Files.createTempFile("loom-unpick-input", ".jar");
+			final Path targetOutput = Files.createTempFile("loom-unpick-output", ".jar");
+
+			try {
+				final Set<String> targetClasses = new HashSet<>();
+
+				try (RawZipFile input = RawZipFile.open(inputJar);
+						RawZipWriter writer = new RawZipWriter(targetInput)) {
+					for (RawZipFile.Entry entry : input.entries()) {
+						if (entry.name().endsWith(".class") && referencesTargetMethod(input.readBytes(entry), targetMethods)) {
+							writer.copyEntry(input, entry);
+							targetClasses.add(entry.name());
+						}
+					}
+				}
+
+				LOGGER.info("Unpicking {} classes of {}", targetClasses.size(), inputJar);
+				unpick(targetInput, targetOutput, inputJar, definitions, constantJar, classpath);
+
+				try (RawZipFile input = RawZipFile.open(inputJar);
+						RawZipFile unpicked = RawZipFile.open(targetOutput);
+						RawZipWriter writer = new RawZipWriter(outputJar)) {
+					for (RawZipFile.Entry entry : input.entries()) {
+						final RawZipFile.Entry unpickedEntry = targetClasses.contains(entry.name()) ? unpicked.getEntry(entry.name()) : null;
+
+						if (unpickedEntry != null) {
+							writer.copyEntry(unpicked, unpickedEntry);
+						} else {
+							writer.copyEntry(input, entry);
+						}
+					}
+				}
+			} finally {
+				Files.deleteIfExists(targetInput);
+				Files.deleteIfExists(targetOutput);
+			}
+		}
+
+		/**
+		 * Runs unpick over every class of the input jar.
+		 *
+		 * @param originalJar the jar that the input classes were taken from, which provides the hierarchy of the other classes
+		 */
+		@VisibleForTesting
+		public static void unpick(Path inputJar, Path outputJar, Path originalJar, Path definitions, Path constantJar, List<Path> classpath) {
+			final List<String> args = new ArrayList<>();
+			args.add(inputJar.toAbsolutePath().toString());
+			args.add(outputJar.toAbsolutePath().toString());
+			args.add(definitions.toAbsolutePath().toString());
+			args.add(constantJar.toAbsolutePath().toString());
+			args.add(originalJar.toAbsolutePath().toString());
+
+			for (Path path : classpath) {
+				args.add(path.toAbsolutePath().toString());
+			}
+
+			try {
+				final Class<?> mainClass = Class.forName(MAIN_CLASS, true, Thread.currentThread().getContextClassLoader());
+				mainClass.getMethod("main", String[].class).invoke(null, (Object) args.toArray(String[]::new));
+			} catch (InvocationTargetException e) {
+				throw new RuntimeException("Unpick failed", e.getCause());
+			} catch (ReflectiveOperationException e) {
+				throw new RuntimeException("Failed to run unpick", e);
+			}
+		}
+
+		/**
+		 * Reads the names and descriptors of the target methods from v2 unpick definitions.
+		 *
+		 * @return the descriptors of the target methods by name, or null when the definitions are not understood
+		 */
+		@Nullable
+		private static Map<String, Set<String>> readTargetMethods(Path definitions) throws IOException {
+			final Map<String, Set<String>> targetMethods = new HashMap<>();
+
+			try (BufferedReader reader = Files.newBufferedReader(definitions, StandardCharsets.UTF_8)) {
+				final String header = reader.readLine();
+
+				if (header == null || !header.trim().equals("v2")) {
+					return null;
+				}
+
+				String line;
+
+				while ((line = reader.readLine()) != null) {
+					final int comment = line.indexOf('#');
+					final String[] tokens = (comment >= 0 ? line.substring(0, comment) : line).trim().split("\\s+");
+
+					if (tokens[0].equals("target_method")) {
+						if (tokens.length != 4) {
+							return null;
+						}
+
+						targetMethods.computeIfAbsent(tokens[2], name -> new HashSet<>()).add(tokens[3]);
+					} else if (!KNOWN_DIRECTIVES.contains(tokens[0])) {
+						return null;
+					}
+				}
+			}
+
+			return targetMethods;
+		}
+
+		/**
+		 * Whether the class may declare or call one of the target methods, checked against the names in its constant pool.
+		 */
+		private static boolean referencesTargetMethod(byte[] classBytes, Map<String, Set<String>> targetMethods) {
+			final ClassReader reader = new ClassReader(classBytes);
+			final Set<String> strings = new HashSet<>();
+
+			for (int i = 1; i < reader.getItemCount(); i++) {
+				final int offset = reader.getItem(i);
+
+				// CONSTANT_Utf8, the second slot of longs and doubles has no offset.
+				if (offset == 0 || classBytes[offset - 1] != 1) {
+					continue;
+				}
+
+				strings.add(new String(classBytes, offset + 2, reader.readUnsignedShort(offset), StandardCharsets.UTF_8));
+			}
+
+			for (Map.Entry<String, Set<String>> entry : targetMethods.entrySet()) {
+				if (strings.contains(entry.getKey()) && entry.getValue().stream().anyMatch(strings::contains)) {
+					return true;
+				}
+			}
+
+			return false;
+		}
 	}
 }
@@ -30,14 +30,18 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
 import javax.inject.Inject;
 
 import org.gradle.api.DefaultTask;
 import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.tasks.InputFile;
 import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.SkipWhenEmpty;
 import org.gradle.api.tasks.TaskAction;
 
@@ -46,8 +50,7 @@ import net.fabricmc.accesswidener.AccessWidenerReader;
 import net.fabricmc.accesswidener.AccessWidenerVisitor;
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
-import net.fabricmc.tinyremapper.TinyRemapper;
-import net.fabricmc.tinyremapper.api.TrEnvironment;
+import net.fabricmc.loom.configuration.accesswidener.ClassMemberIndex;
 
 public abstract class ValidateAccessWidenerTask extends DefaultTask {
 	@SkipWhenEmpty
@@ -57,12 +60,19 @@ public abstract class ValidateAccessWidenerTask extends DefaultTask {
 	@InputFiles
 	public abstract ConfigurableFileCollection getTargetJars();
 
+	/**
+	 * Where the member indexes of the target jars are kept between builds.
+	 */
+	@Internal
+	public abstract DirectoryProperty getIndexDirectory();
+
 	@Inject
 	public ValidateAccessWidenerTask() {
 		final LoomGradleExtension extension = LoomGradleExtension.get(getProject());
 
 		getAccessWidener().convention(extension.getAccessWidenerPath()).finalizeValueOnRead();
 		getTargetJars().from(extension.getMinecraftJarsCollection(MappingsNamespace.NAMED));
+		getIndexDirectory().convention(getProject().getLayout().dir(getProject().provider(() -> new File(extension.getFiles().getProjectPersistentCache(), "member-indexes"))));
 
 		// Ignore outputs for up-to-date checks as there aren't any (so only inputs are checked)
 		getOutputs().upToDateWhen(task -> true);
@@ -70,13 +80,16 @@ public abstract class ValidateAccessWidenerTask extends DefaultTask {
 
 	@TaskAction
 	public void run() {
-		final TinyRemapper tinyRemapper = TinyRemapper.newRemapper().build();
+		final List<Path> targetJars = getTargetJars().getFiles().stream().map(File::toPath).toList();
+		final List<ClassMemberIndex> indexes;
 
-		for (File file : getTargetJars().getFiles()) {
-			tinyRemapper.readClassPath(file.toPath());
+		try {
+			indexes = ClassMemberIndex.getOrCreate(targetJars, getIndexDirectory().get().getAsFile().toPath());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to index the target jars", e);
 		}
 
-		final AccessWidenerValidator validator = new AccessWidenerValidator(tinyRemapper.getEnvironment());
+		final AccessWidenerValidator validator = new AccessWidenerValidator(indexes);
 		final AccessWidenerReader accessWidenerReader = new AccessWidenerReader(validator);
 
 		try (BufferedReader reader = Files.newBufferedReader(getAccessWidener().get().getAsFile().toPath(), StandardCharsets.UTF_8)) {
@@ -86,32 +99,30 @@ public abstract class ValidateAccessWidenerTask extends DefaultTask {
 			throw e;
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to read access widener", e);
-		} finally {
-			tinyRemapper.finish();
 		}
 	}
 
 	/**
 	 * Validates that all entries in an access-widner file relate to a class/method/field in the mc jar.
 	 */
-	private record AccessWidenerValidator(TrEnvironment environment) implements AccessWidenerVisitor {
+	private record AccessWidenerValidator(List<ClassMemberIndex> indexes) implements AccessWidenerVisitor {
 		@Override
 		public void visitClass(String name, AccessWidenerReader.AccessType access, boolean transitive) {
-			if (environment().getClass(name) == null) {
+			if (indexes().stream().noneMatch(index -> index.hasClass(name))) {
 				throw new RuntimeException("Could not find class (%s)".formatted(name));
 			}
 		}
 
 		@Override
 		public void visitMethod(String owner, String name, String descriptor, AccessWidenerReader.AccessType access, boolean transitive) {
-			if (environment().getMethod(owner, name, descriptor) == null) {
+			if (indexes().stream().noneMatch(index -> index.hasMethod(owner, name, descriptor))) {
 				throw new RuntimeException("Could not find method (%s%s) in class (%s)".formatted(name, descriptor, owner));
 			}
 		}
 
 		@Override
 		public void visitField(String owner, String name, String descriptor, AccessWidenerReader.AccessType access, boolean transitive) {
-			if (environment().getField(owner, name, descriptor) == null) {
+			if (indexes().stream().noneMatch(index -> index.hasField(owner, name, descriptor))) {
 				throw new RuntimeException("Could not find field (%s%s) in class (%s)".formatted(name, descriptor, owner));
 			}
 		}
@@ -29,20 +29,42 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
-import java.util.LinkedList;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import org.gradle.api.GradleException;
 import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileTree;
+import org.gradle.api.file.FileType;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.IgnoreEmptyDirectories;
 import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SkipWhenEmpty;
 import org.gradle.api.tasks.SourceTask;
 import org.gradle.api.tasks.TaskAction;
+import org.gradle.work.ChangeType;
+import org.gradle.work.FileChange;
+import org.gradle.work.InputChanges;
 import org.gradle.workers.WorkAction;
 import org.gradle.workers.WorkParameters;
 import org.gradle.workers.WorkQueue;
@@ -58,6 +80,7 @@ import org.objectweb.asm.Type;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.tinyremapper.extension.mixin.common.data.Constant;
 
@@ -72,9 +95,22 @@ import net.fabricmc.tinyremapper.extension.mixin.common.data.Constant;
  * }</pre>
  */
 public abstract class ValidateMixinNameTask extends SourceTask {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ValidateMixinNameTask.class);
+	private static final TypeReference<Map<String, String>> STATE_TYPE = new TypeReference<>() {
+	};
+
+	// getSource creates a new file tree every time, incremental changes are tracked against this collection.
+	private final FileCollection stableSources = getProject().files((Callable<FileTree>) this::getSource);
+
 	@Input
 	abstract Property<Boolean> getSoftFailures();
 
+	/**
+	 * The validation errors of the previous run by class file, so that only the changed class files are read again.
+	 */
+	@OutputFile
+	protected abstract RegularFileProperty getStateFile();
+
 	@Inject
 	protected abstract WorkerExecutor getWorkerExecutor();
 
@@ -83,20 +119,66 @@ public abstract class ValidateMixinNameTask extends SourceTask {
 		setGroup("verification");
 		getProject().getTasks().getByName("check").dependsOn(this);
 		getSoftFailures().convention(false);
+		getStateFile().convention(getProject().getLayout().getBuildDirectory().file("loom-cache/" + getName() + "-state.json"));
+	}
+
+	@Override
+	@Internal("Tracked through the stable sources")
+	public FileTree getSource() {
+		return super.getSource();
+	}
+
+	@SkipWhenEmpty
+	@IgnoreEmptyDirectories
+	@PathSensitive(PathSensitivity.ABSOLUTE)
+	@InputFiles
+	protected FileCollection getStableSources() {
+		return stableSources;
 	}
 
 	@TaskAction
-	public void run() {
+	public void run(InputChanges inputChanges) {
+		final List<File> changedClasses = new ArrayList<>();
+		final List<String> removedClasses = new ArrayList<>();
+		// The errors of the unchanged class files are only known from a readable state, every class file is validated again without one.
+		final boolean incremental = inputChanges.isIncremental() && readState(getStateFile().get().getAsFile().toPath()) != null;
+
+		if (incremental) {
+			for (FileChange change : inputChanges.getFileChanges(getStableSources())) {
+				if (change.getFileType() == FileType.DIRECTORY || !change.getFile().getName().endsWith(".class")) {
+					continue;
+				}
+
+				if (change.getChangeType() == ChangeType.REMOVED) {
+					removedClasses.add(change.getFile().getAbsolutePath());
+				} else {
+					changedClasses.add(change.getFile());
+				}
+			}
+		} else {
+			for (File file : getStableSources().getAsFileTree()) {
+				if (file.getName().endsWith(".class")) {
+					changedClasses.add(file);
+				}
+			}
+		}
+
 		final WorkQueue workQueue = getWorkerExecutor().noIsolation();
 
 		workQueue.submit(ValidateMixinAction.class, params -> {
-			params.getInputClasses().from(getSource().matching(pattern -> pattern.include("**/*.class")));
+			params.getInputClasses().from(changedClasses);
+			params.getRemovedClasses().set(removedClasses);
+			params.getIncremental().set(incremental);
+			params.getStateFile().set(getStateFile());
 			params.getSoftFailures().set(getSoftFailures());
 		});
 	}
 
 	public interface ValidateMixinsParams extends WorkParameters {
 		ConfigurableFileCollection getInputClasses();
+		ListProperty<String> getRemovedClasses();
+		Property<Boolean> getIncremental();
+		RegularFileProperty getStateFile();
 		Property<Boolean> getSoftFailures();
 	}
 
@@ -105,41 +187,91 @@ public abstract class ValidateMixinNameTask extends SourceTask {
 
 		@Override
 		public void execute() {
-			final Set<File> files = getParameters().getInputClasses().getAsFileTree().getFiles();
-			final List<String> errors = new LinkedList<>();
+			final Path stateFile = getParameters().getStateFile().get().getAsFile().toPath();
+			final Map<String, String> errors = new TreeMap<>();
 
-			for (File file : files) {
-				final Mixin mixin = getMixin(file);
+			if (getParameters().getIncremental().get()) {
+				errors.putAll(Objects.requireNonNull(readState(stateFile), "Mixin name validation state"));
+			}
 
-				if (mixin == null) {
-					continue;
-				}
+			getParameters().getRemovedClasses().get().forEach(errors::remove);
 
-				final String mixinClassName = toSimpleName(mixin.className);
-				final String expectedMixinClassName = mixin.expectedClassName();
+			final Set<File> files = getParameters().getInputClasses().getFiles();
+			// The class files are independent of each other, an error (or the lack of one) is found for each in parallel.
+			final Map<String, Optional<String>> results = files.parallelStream()
+					.collect(Collectors.toConcurrentMap(File::getAbsolutePath, file -> Optional.ofNullable(validate(file))));
 
-				if (expectedMixinClassName.startsWith("class_")) {
-					// Don't enforce intermediary named mixins.
-					continue;
+			results.forEach((path, error) -> {
+				if (error.isPresent()) {
+					errors.put(path, error.get());
+				} else {
+					errors.remove(path);
 				}
+			});
 
-				if (!expectedMixinClassName.equals(mixinClassName)) {
-					errors.add("%s -> %s".formatted(mixin.className, expectedMixinClassName));
-				}
-			}
+			writeState(stateFile, errors);
 
 			if (errors.isEmpty()) {
 				return;
 			}
 
-			final String message = "Mixin name validation failed: " + errors.stream().collect(Collectors.joining(System.lineSeparator()));
+			final String message = "Mixin name validation failed: " + errors.values().stream().sorted().collect(Collectors.joining(System.lineSeparator()));
 
 			if (getParameters().getSoftFailures().get()) {
 				LOGGER.warn(message);
 				return;
 			}
 
-			throw new GradleException("Mixin name validation failed: " + errors.stream().collect(Collectors.joining(System.lineSeparator())));
+			throw new GradleException(message);
+		}
+
+		@Nullable
+		private static String validate(File file) {
+			final Mixin mixin = getMixin(file);
+
+			if (mixin == null) {
+				return null;
+			}
+
+			final String mixinClassName = toSimpleName(mixin.className);
+			final String expectedMixinClassName = mixin.expectedClassName();
+
+			if (expectedMixinClassName.startsWith("class_")) {
+				// Don't enforce intermediary named mixins.
+				return null;
+			}
+
+			if (!expectedMixinClassName.equals(mixinClassName)) {
+				return "%s -> %s".formatted(mixin.className, expectedMixinClassName);
+			}
+
+			return null;
+		}
+
+		private static void writeState(Path stateFile, Map<String, String> errors) {
+			try {
+				Files.createDirectories(stateFile.getParent());
+				LoomGradlePlugin.OBJECT_MAPPER.writeValue(stateFile.toFile(), errors);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to write mixin name validation state: " + stateFile, e);
+			}
+		}
+	}
+
+	/**
+	 * @return the validation errors of the previous run, or null when the state file is missing or cannot be read
+	 */
+	@Nullable
+	private static Map<String, String> readState(Path stateFile) {
+		if (!Files.exists(stateFile)) {
+			return null;
+		}
+
+		try {
+			return LoomGradlePlugin.OBJECT_MAPPER.readValue(stateFile.toFile(), STATE_TYPE);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to read mixin name validation state {}, validating every class file", stateFile, e);
+			return null;
 		}
 	}
 
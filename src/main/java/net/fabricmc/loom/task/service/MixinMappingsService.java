@@ -25,46 +25,149 @@
 package net.fabricmc.loom.task.service;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 
 import org.gradle.api.Project;
 import org.gradle.api.tasks.SourceSet;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.configuration.providers.mappings.MappingsProviderImpl;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
+import net.fabricmc.mappingio.MappingReader;
+import net.fabricmc.mappingio.tree.MappingTree;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
 import net.fabricmc.tinyremapper.IMappingProvider;
 
 public final class MixinMappingsService implements SharedService {
-	private final SharedServiceManager sharedServiceManager;
 	private final HashSet<File> mixinMappings = new HashSet<>();
+	// The merged mappings by "from:to", shared by every remapper of the build.
+	private final Map<String, MergedMappings> mergedMappings = new HashMap<>();
 
-	private MixinMappingsService(SharedServiceManager sharedServiceManager) {
-		this.sharedServiceManager = sharedServiceManager;
+	private MixinMappingsService() {
 	}
 
 	public static File getMixinMappingFile(Project project, SourceSet sourceSet) {
 		final LoomGradleExtension extension = LoomGradleExtension.get(project);
 		File mixinMapping = new File(extension.getFiles().getProjectBuildCache(), "mixin-map-" + extension.getMappingsProvider().mappingsIdentifier() + "." + sourceSet.getName() + ".tiny");
 
-		getService(SharedServiceManager.get(project), extension.getMappingsProvider()).mixinMappings.add(mixinMapping);
+		final MixinMappingsService service = getService(SharedServiceManager.get(project), extension.getMappingsProvider());
+
+		synchronized (service) {
+			service.mixinMappings.add(mixinMapping);
+		}
 
 		return mixinMapping;
 	}
 
 	static synchronized MixinMappingsService getService(SharedServiceManager sharedServiceManager, MappingsProviderImpl mappingsProvider) {
-		return sharedServiceManager.getOrCreateService("MixinMappings-" + mappingsProvider.mappingsIdentifier(), () -> new MixinMappingsService(sharedServiceManager));
+		return sharedServiceManager.getOrCreateService("MixinMappings-" + mappingsProvider.mappingsIdentifier(), MixinMappingsService::new);
 	}
 
 	IMappingProvider getMappingProvider(String from, String to) {
-		return out -> {
-			for (File mixinMapping : mixinMappings) {
-				if (!mixinMapping.exists()) continue;
+		return out -> getMergedMappings(from, to).load(out);
+	}
+
+	/**
+	 * Merges the mixin mappings of all the source sets, they are only read again once one of the files has changed.
+	 */
+	private synchronized MergedMappings getMergedMappings(String from, String to) {
+		final List<Path> files = mixinMappings.stream()
+				.map(File::toPath)
+				.filter(Files::exists)
+				.sorted()
+				.toList();
+
+		final List<String> fileHashes;
+
+		try {
+			fileHashes = new ArrayList<>();
+
+			for (Path file : files) {
+				fileHashes.add(file + "=" + Checksum.sha256Hex(file));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to hash mixin mappings", e);
+		}
+
+		final String key = from + ":" + to;
+		final MergedMappings cached = mergedMappings.get(key);
+
+		if (cached != null && cached.fileHashes().equals(fileHashes)) {
+			return cached;
+		}
+
+		final MemoryMappingTree mappingTree = new MemoryMappingTree();
+
+		for (Path file : files) {
+			try {
+				// Reading into the same tree merges the files.
+				MappingReader.read(file, mappingTree);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to read mixin mappings from: " + file, e);
+			}
+		}
+
+		final MergedMappings merged = MergedMappings.create(fileHashes, mappingTree, from, to);
+		mergedMappings.put(key, merged);
+		return merged;
+	}
+
+	/**
+	 * The merged mappings flattened into arrays, classes as (name, mapped name) pairs and members as (owner, name, descriptor, mapped name).
+	 */
+	private record MergedMappings(List<String> fileHashes, String[] classes, String[] fields, String[] methods) {
+		static MergedMappings create(List<String> fileHashes, MappingTree mappingTree, String from, String to) {
+			final List<String> classes = new ArrayList<>();
+			final List<String> fields = new ArrayList<>();
+			final List<String> methods = new ArrayList<>();
+
+			if (!mappingTree.getClasses().isEmpty()) {
+				final int fromId = mappingTree.getNamespaceId(from);
+				final int toId = mappingTree.getNamespaceId(to);
+
+				for (MappingTree.ClassMapping classDef : mappingTree.getClasses()) {
+					final String className = classDef.getName(fromId);
+					final String dstName = classDef.getName(toId);
+
+					// Unsure if this is correct, should be better than crashing tho.
+					Collections.addAll(classes, className, dstName != null ? dstName : className);
+
+					for (MappingTree.FieldMapping field : classDef.getFields()) {
+						Collections.addAll(fields, className, field.getName(fromId), field.getDesc(fromId), field.getName(toId));
+					}
+
+					for (MappingTree.MethodMapping method : classDef.getMethods()) {
+						Collections.addAll(methods, className, method.getName(fromId), method.getDesc(fromId), method.getName(toId));
+					}
+				}
+			}
+
+			return new MergedMappings(fileHashes, classes.toArray(String[]::new), fields.toArray(String[]::new), methods.toArray(String[]::new));
+		}
+
+		void load(IMappingProvider.MappingAcceptor acceptor) {
+			for (int i = 0; i < classes.length; i += 2) {
+				acceptor.acceptClass(classes[i], classes[i + 1]);
+			}
+
+			for (int i = 0; i < fields.length; i += 4) {
+				acceptor.acceptField(new IMappingProvider.Member(fields[i], fields[i + 1], fields[i + 2]), fields[i + 3]);
+			}
 
-				MappingsService service = MappingsService.create(sharedServiceManager, mixinMapping.getAbsolutePath(), mixinMapping.toPath(), from, to, false);
-				service.getMappingsProvider().load(out);
+			for (int i = 0; i < methods.length; i += 4) {
+				acceptor.acceptMethod(new IMappingProvider.Member(methods[i], methods[i + 1], methods[i + 2]), methods[i + 3]);
 			}
-		};
+		}
 	}
 }
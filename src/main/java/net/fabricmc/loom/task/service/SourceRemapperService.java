@@ -26,9 +26,15 @@ package net.fabricmc.loom.task.service;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
 import java.util.function.Supplier;
 
 import com.google.common.base.Suppliers;
@@ -46,13 +52,13 @@ import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.DeletingFileVisitor;
 import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.SourceRemapper;
-import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
+import net.fabricmc.loom.util.zip.RawZipFile;
 import net.fabricmc.lorenztiny.TinyMappingsReader;
 
 public final class SourceRemapperService implements SharedService {
-	public static synchronized SourceRemapperService create(RemapSourcesJarTask task) {
+	public static SourceRemapperService create(RemapSourcesJarTask task) {
 		final Project project = task.getProject();
 		final String to = task.getTargetNamespace().get();
 		final String from = task.getSourceNamespace().get();
@@ -66,11 +72,16 @@ public final class SourceRemapperService implements SharedService {
 	}
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(SourceRemapperService.class);
+	// Each remap holds a JDT environment over the whole classpath, which takes a lot of memory.
+	private static final int MAX_CONCURRENT_REMAPS = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
 
 	private final MappingsService mappingsService;
 	private final ConfigurableFileCollection classpath;
 
-	private final Supplier<Mercury> mercury = Suppliers.memoize(this::createMercury);
+	private final Supplier<List<Path>> classpathFiles = Suppliers.memoize(this::getClasspathFiles);
+	private final Semaphore remapPermits = new Semaphore(MAX_CONCURRENT_REMAPS);
+	// Mercury and its mappings are not thread safe, each concurrent remap uses its own instance.
+	private final Queue<Mercury> idleMercury = new ConcurrentLinkedQueue<>();
 
 	private SourceRemapperService(MappingsService mappingsService, ConfigurableFileCollection classpath) {
 		this.mappingsService = mappingsService;
@@ -81,16 +92,6 @@ public final class SourceRemapperService implements SharedService {
 		if (source.equals(destination))
 			throw new UnsupportedOperationException("Cannot remap in place.");
 
-		Path srcPath = source;
-		boolean isSrcTmp = false;
-
-		// Create a temp directory with all the sources.
-		if (!Files.isDirectory(source)) {
-			isSrcTmp = true;
-			srcPath = Files.createTempDirectory("uniloom-src");
-			ZipUtils.unpackAll(source, srcPath);
-		}
-
 		if (!Files.isDirectory(destination) && Files.exists(destination)) {
 			Files.delete(destination);
 		}
@@ -98,20 +99,89 @@ public final class SourceRemapperService implements SharedService {
 		try (FileSystemUtil.Delegate dstFs = Files.isDirectory(destination) ? null : FileSystemUtil.getJarFileSystem(destination, true)) {
 			Path dstPath = dstFs != null ? dstFs.get().getPath("/") : destination;
 
-			doRemap(srcPath, dstPath, source);
-			SourceRemapper.copyNonJavaFiles(srcPath, dstPath, LOGGER, source);
-		} finally {
-			if (isSrcTmp) {
+			if (Files.isDirectory(source)) {
+				doRemap(source, dstPath, source);
+				SourceRemapper.copyNonJavaFiles(source, dstPath, LOGGER, source);
+				return;
+			}
+
+			// Mercury parses the sources from the file system, so only the java files are extracted.
+			final Path srcPath = Files.createTempDirectory("uniloom-src");
+
+			try (RawZipFile zipFile = RawZipFile.open(source)) {
+				final List<RawZipFile.Entry> resources = new ArrayList<>();
+
+				for (RawZipFile.Entry entry : zipFile.entries()) {
+					if (entry.isDirectory()) {
+						continue;
+					}
+
+					if (!entry.name().endsWith(".java")) {
+						resources.add(entry);
+						continue;
+					}
+
+					final Path path = srcPath.resolve(entry.name()).normalize();
+
+					if (!path.startsWith(srcPath)) {
+						throw new IOException("Entry %s of %s is outside of the jar".formatted(entry.name(), source));
+					}
+
+					Files.createDirectories(path.getParent());
+
+					try (InputStream inputStream = zipFile.openInputStream(entry)) {
+						Files.copy(inputStream, path);
+					}
+				}
+
+				doRemap(srcPath, dstPath, source);
+
+				// The other files are copied straight from the jar.
+				for (RawZipFile.Entry entry : resources) {
+					final Path target = dstPath.resolve(entry.name());
+
+					if (Files.exists(target)) {
+						continue;
+					}
+
+					if (target.getParent() != null) {
+						Files.createDirectories(target.getParent());
+					}
+
+					try (InputStream inputStream = zipFile.openInputStream(entry)) {
+						Files.copy(inputStream, target);
+					}
+				}
+			} finally {
 				Files.walkFileTree(srcPath, new DeletingFileVisitor());
 			}
 		}
 	}
 
-	private synchronized void doRemap(Path srcPath, Path dstPath, Path source) {
+	private void doRemap(Path srcPath, Path dstPath, Path source) {
 		try {
-			mercury.get().rewrite(srcPath, dstPath);
-		} catch (Exception e) {
-			LOGGER.warn("Could not remap " + source + " fully!", e);
+			remapPermits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting to remap " + source, e);
+		}
+
+		try {
+			Mercury mercury = idleMercury.poll();
+
+			if (mercury == null) {
+				mercury = createMercury();
+			}
+
+			try {
+				mercury.rewrite(srcPath, dstPath);
+			} catch (Exception e) {
+				LOGGER.warn("Could not remap " + source + " fully!", e);
+			} finally {
+				idleMercury.add(mercury);
+			}
+		} finally {
+			remapPermits.release();
 		}
 	}
 
@@ -119,6 +189,13 @@ public final class SourceRemapperService implements SharedService {
 		return new TinyMappingsReader(mappingsService.getMemoryMappingTree(), mappingsService.getFromNamespace(), mappingsService.getToNamespace()).read();
 	}
 
+	private List<Path> getClasspathFiles() {
+		return classpath.getFiles().stream()
+				.filter(File::exists)
+				.map(File::toPath)
+				.toList();
+	}
+
 	private Mercury createMercury() {
 		var mercury = new Mercury();
 		mercury.setGracefulClasspathChecks(true);
@@ -130,11 +207,7 @@ public final class SourceRemapperService implements SharedService {
 			throw new UncheckedIOException("Failed to read mercury mappings", e);
 		}
 
-		for (File file : classpath.getFiles()) {
-			if (file.exists()) {
-				mercury.getClassPath().add(file.toPath());
-			}
-		}
+		mercury.getClassPath().addAll(classpathFiles.get());
 
 		return mercury;
 	}
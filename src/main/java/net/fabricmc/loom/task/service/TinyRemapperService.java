@@ -31,6 +31,7 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -96,6 +97,9 @@ public class TinyRemapperService implements SharedService {
 	private KotlinRemapperClassloader kotlinRemapperClassloader;
 	private final Map<String, InputTag> inputTagMap = new HashMap<>();
 	private final HashSet<Path> classpath = new HashSet<>();
+	// Inputs and classpath entries are only read once a jar is remapped, nothing is read when every remap task is up-to-date.
+	private final Map<Path, InputTag> pendingInputs = new LinkedHashMap<>();
+	private final List<Path> pendingClasspath = new ArrayList<>();
 	// Set to true once remapping has started, once set no inputs can be read.
 	private boolean isRemapping = false;
 
@@ -131,21 +135,31 @@ public class TinyRemapperService implements SharedService {
 
 	public TinyRemapper getTinyRemapperForRemapping() {
 		synchronized (this) {
-			isRemapping = true;
-			return Objects.requireNonNull(tinyRemapper, "Tiny remapper has not been setup");
-		}
-	}
+			Objects.requireNonNull(tinyRemapper, "Tiny remapper has not been setup");
 
-	public synchronized TinyRemapper getTinyRemapperForInputs() {
-		synchronized (this) {
-			if (isRemapping) {
-				throw new IllegalStateException("Cannot read inputs as remapping has already started");
+			if (!isRemapping) {
+				isRemapping = true;
+
+				pendingInputs.forEach((inputFile, tag) -> tinyRemapper.readInputsAsync(tag, inputFile));
+				pendingInputs.clear();
+				readPendingClasspath();
 			}
 
 			return tinyRemapper;
 		}
 	}
 
+	/**
+	 * Adds a jar to the inputs of the remapper, it is read once the first jar is remapped.
+	 */
+	public synchronized void addInput(Path inputFile) {
+		if (isRemapping) {
+			throw new IllegalStateException("Cannot read inputs as remapping has already started");
+		}
+
+		pendingInputs.put(inputFile, getOrCreateTag(inputFile));
+	}
+
 	void readClasspath(List<Path> paths) {
 		List<Path> toRead;
 
@@ -154,7 +168,20 @@ public class TinyRemapperService implements SharedService {
 			classpath.addAll(paths);
 		}
 
-		tinyRemapper.readClassPathAsync(toRead.toArray(Path[]::new));
+		synchronized (this) {
+			pendingClasspath.addAll(toRead);
+
+			if (isRemapping) {
+				readPendingClasspath();
+			}
+		}
+	}
+
+	private void readPendingClasspath() {
+		if (!pendingClasspath.isEmpty()) {
+			tinyRemapper.readClassPathAsync(pendingClasspath.toArray(Path[]::new));
+			pendingClasspath.clear();
+		}
 	}
 
 	@Override
@@ -0,0 +1,116 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An exclusive lock on a file produced in the shared cache, held by a single thread across all the Gradle daemons.
+ *
+ * <p>The lock is taken on a separate lock file, which is never deleted. Locking the same file again from the owning thread is allowed.
+ */
+public final class ArtifactLock implements AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactLock.class);
+	// File locks are held by the JVM, so threads of this JVM must also be kept out.
+	private static final Map<Path, ReentrantLock> JVM_LOCKS = new ConcurrentHashMap<>();
+
+	private final ReentrantLock jvmLock;
+	// The channel holding the file lock, null when the lock was re-entered.
+	@Nullable
+	private final FileChannel channel;
+
+	private ArtifactLock(ReentrantLock jvmLock, @Nullable FileChannel channel) {
+		this.jvmLock = jvmLock;
+		this.channel = channel;
+	}
+
+	/**
+	 * Blocks until the lock is acquired.
+	 */
+	public static ArtifactLock acquire(Path lockFile) throws IOException {
+		final Path path = lockFile.toAbsolutePath().normalize();
+		final ReentrantLock jvmLock = JVM_LOCKS.computeIfAbsent(path, p -> new ReentrantLock());
+		jvmLock.lock();
+
+		if (jvmLock.getHoldCount() > 1) {
+			// Already holding the file lock.
+			return new ArtifactLock(jvmLock, null);
+		}
+
+		FileChannel channel = null;
+
+		try {
+			Files.createDirectories(path.getParent());
+			channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			final FileLock fileLock = channel.tryLock();
+
+			if (fileLock == null) {
+				LOGGER.info("Waiting for {} to be released by another process", path);
+				channel.lock();
+			}
+
+			return new ArtifactLock(jvmLock, channel);
+		} catch (IOException | RuntimeException e) {
+			if (channel != null) {
+				channel.close();
+			}
+
+			jvmLock.unlock();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the lock file of a file or directory in the cache, as a sibling of it
+	 */
+	public static Path lockFileFor(Path artifact) {
+		// Not <name>.lock, which is the marker used by the downloader for interrupted downloads.
+		return artifact.resolveSibling(artifact.getFileName() + ".artifact.lock");
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			if (channel != null) {
+				// Closing the channel releases the file lock.
+				channel.close();
+			}
+		} finally {
+			jvmLock.unlock();
+		}
+	}
+}
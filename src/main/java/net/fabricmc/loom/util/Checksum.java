@@ -27,17 +27,47 @@ package net.fabricmc.loom.util;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.google.common.io.BaseEncoding;
-import com.google.common.io.Files;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 
+/**
+ * File hashes, memoized for as long as the file is not modified.
+ *
+ * <p>Concurrent requests for the same file share a single computation. The memoized hashes are cleared when the build finishes,
+ * see {@link net.fabricmc.loom.util.service.SharedServiceManager}.
+ */
 public class Checksum {
 	private static final Logger log = Logging.getLogger(Checksum.class);
+	// Mapping is only worth it for larger files.
+	private static final long MAP_THRESHOLD = 64 * 1024;
+	private static final long MAP_CHUNK_SIZE = 64L * 1024 * 1024;
+	// Mapped files cannot be deleted or replaced on Windows until the mapping is garbage collected.
+	private static final boolean USE_MAPPING = !OperatingSystem.CURRENT_OS.equals(OperatingSystem.WINDOWS);
+	private static final Cache<FileKey, HashCode> HASHES = CacheBuilder.newBuilder()
+			.maximumSize(4096)
+			.build();
+	private static final LongAdder COMPUTED_HASHES = new LongAdder();
 
 	public static boolean equals(File file, String checksum) {
 		if (file == null || !file.exists()) {
@@ -45,7 +75,7 @@ public class Checksum {
 		}
 
 		try {
-			HashCode hash = Files.asByteSource(file).hash(Hashing.sha1());
+			HashCode hash = hash(file.toPath(), Hashing.sha1());
 			log.debug("Checksum check: '" + hash.toString() + "' == '" + checksum + "'?");
 			return hash.toString().equals(checksum);
 		} catch (IOException e) {
@@ -57,22 +87,42 @@ public class Checksum {
 
 	public static byte[] sha256(File file) {
 		try {
-			HashCode hash = Files.asByteSource(file).hash(Hashing.sha256());
-			return hash.asBytes();
+			return hash(file.toPath(), Hashing.sha256()).asBytes();
 		} catch (IOException e) {
 			throw new RuntimeException("Failed to get file hash");
 		}
 	}
 
 	public static String sha1Hex(Path path) throws IOException {
-		HashCode hash = Files.asByteSource(path.toFile()).hash(Hashing.sha1());
-		return toHex(hash.asBytes());
+		return hash(path, Hashing.sha1()).toString();
+	}
+
+	public static String sha256Hex(Path path) throws IOException {
+		return hash(path, Hashing.sha256()).toString();
+	}
+
+	/**
+	 * Hashes the files in parallel.
+	 *
+	 * @return the hex encoded sha256 of each file
+	 */
+	public static Map<Path, String> sha256Hex(Collection<Path> paths) throws IOException {
+		try {
+			return paths.parallelStream().distinct().collect(Collectors.toMap(path -> path, path -> {
+				try {
+					return sha256Hex(path);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
 	}
 
 	public static String truncatedSha256(File file) {
 		try {
-			HashCode hash = Files.asByteSource(file).hash(Hashing.sha256());
-			return hash.toString().substring(0, 12);
+			return hash(file.toPath(), Hashing.sha256()).toString().substring(0, 12);
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to get file hash of " + file, e);
 		}
@@ -81,4 +131,62 @@ public class Checksum {
 	public static String toHex(byte[] bytes) {
 		return BaseEncoding.base16().lowerCase().encode(bytes);
 	}
+
+	private static HashCode hash(Path path, HashFunction function) throws IOException {
+		final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		final FileKey key = new FileKey(path.toAbsolutePath().normalize(), function, attributes.size(), attributes.lastModifiedTime(), attributes.fileKey());
+
+		try {
+			return HASHES.get(key, () -> hashFile(path, function));
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			if (e.getCause() instanceof IOException ioException) {
+				throw ioException;
+			}
+
+			throw new RuntimeException("Failed to hash " + path, e.getCause());
+		}
+	}
+
+	private static HashCode hashFile(Path path, HashFunction function) throws IOException {
+		COMPUTED_HASHES.increment();
+		final Hasher hasher = function.newHasher();
+
+		try (FileChannel channel = FileChannel.open(path)) {
+			final long size = channel.size();
+
+			if (USE_MAPPING && size >= MAP_THRESHOLD) {
+				for (long position = 0; position < size; position += MAP_CHUNK_SIZE) {
+					hasher.putBytes(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_CHUNK_SIZE, size - position)));
+				}
+			} else {
+				final ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.min(MAP_THRESHOLD, Math.max(size, 1)));
+
+				while (channel.read(buffer) >= 0) {
+					buffer.flip();
+					hasher.putBytes(buffer);
+					buffer.clear();
+				}
+			}
+		}
+
+		return hasher.hash();
+	}
+
+	public static void clearCache() {
+		HASHES.invalidateAll();
+	}
+
+	/**
+	 * @return the number of times a file has been read to compute its hash
+	 */
+	@VisibleForTesting
+	public static long getComputedHashCount() {
+		return COMPUTED_HASHES.sum();
+	}
+
+	/**
+	 * Identifies a version of a file, the file key is the inode where supported.
+	 */
+	private record FileKey(Path path, HashFunction function, long size, FileTime lastModified, Object fileKey) {
+	}
 }
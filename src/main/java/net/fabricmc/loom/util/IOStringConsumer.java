@@ -28,4 +28,10 @@ import java.io.IOException;
 
 public interface IOStringConsumer {
 	void accept(String data) throws IOException;
+
+	/**
+	 * Reports structured progress, such as the number of classes processed so far. Ignored by default.
+	 */
+	default void progress(int index, int total) throws IOException {
+	}
 }
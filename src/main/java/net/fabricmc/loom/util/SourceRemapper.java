@@ -26,35 +26,40 @@ package net.fabricmc.loom.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
-import java.util.function.Consumer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.cadixdev.lorenz.MappingSet;
 import org.cadixdev.mercury.Mercury;
 import org.cadixdev.mercury.remapper.MercuryRemapper;
 import org.gradle.api.Project;
-import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.internal.logging.progress.ProgressLogger;
-import org.gradle.internal.logging.progress.ProgressLoggerFactory;
 import org.slf4j.Logger;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.RemapConfigurationSettings;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
-import net.fabricmc.loom.configuration.providers.mappings.MappingsProviderImpl;
+import net.fabricmc.loom.util.gradle.ProgressGroup;
 import net.fabricmc.lorenztiny.TinyMappingsReader;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public class SourceRemapper {
+	// A rough upper bound of the heap used by one Mercury worker, its mappings and its JDT environment.
+	private static final long WORKER_MEMORY = 768L * 1024 * 1024;
+
 	private final Project project;
 	private final boolean toNamed;
-	private final List<Consumer<ProgressLogger>> remapTasks = new ArrayList<>();
-
-	private Mercury mercury;
+	private final List<RemapTask> remapTasks = new ArrayList<>();
 
 	public SourceRemapper(Project project, boolean toNamed) {
 		this.project = project;
@@ -62,10 +67,10 @@ public class SourceRemapper {
 	}
 
 	public void scheduleRemapSources(File source, File destination, boolean reproducibleFileOrder, boolean preserveFileTimestamps, Runnable completionCallback) {
-		remapTasks.add((logger) -> {
+		remapTasks.add((mercury, logger) -> {
 			try {
 				logger.progress("remapping sources - " + source.getName());
-				remapSourcesInner(source, destination);
+				remapSourcesInner(mercury, source, destination);
 				ZipReprocessorUtil.reprocessZip(destination, reproducibleFileOrder, preserveFileTimestamps);
 
 				// Set the remapped sources creation date to match the sources if we're likely succeeded in making it
@@ -86,21 +91,85 @@ public class SourceRemapper {
 
 		project.getLogger().lifecycle(":remapping sources");
 
-		ProgressLoggerFactory progressLoggerFactory = ((ProjectInternal) project).getServices().get(ProgressLoggerFactory.class);
-		ProgressLogger progressLogger = progressLoggerFactory.newOperation(SourceRemapper.class.getName());
-		progressLogger.start("Remapping dependency sources", "sources");
+		// The classpath and mappings are resolved on this thread, the workers only read them.
+		final List<Path> classPath = getClassPath();
+		final Mercury mercury = getMercuryInstance(classPath);
+		final Queue<RemapTask> queue = new ConcurrentLinkedQueue<>(remapTasks);
+		final int workers = Math.min(remapTasks.size(), getMaxWorkers());
+
+		try (ProgressGroup progressGroup = new ProgressGroup(project, "Remapping dependency sources")) {
+			if (workers == 1) {
+				runWorker(mercury, queue, progressGroup.createProgressLogger("sources"));
+				return;
+			}
+
+			project.getLogger().info(":remapping {} sources jars with {} workers", remapTasks.size(), workers);
+			final MemoryMappingTree mappings = getMappingTree();
+			final ExecutorService executor = Executors.newFixedThreadPool(workers);
+
+			try {
+				final List<Future<?>> futures = new ArrayList<>();
+				final ProgressLogger firstLogger = progressGroup.createProgressLogger("sources");
+				futures.add(executor.submit(() -> runWorker(mercury, queue, firstLogger)));
+
+				for (int i = 1; i < workers; i++) {
+					final ProgressLogger progressLogger = progressGroup.createProgressLogger("sources");
+					// Mercury and lorenz mapping sets are not thread safe, every other worker reads its own.
+					futures.add(executor.submit(() -> runWorker(createMercury(classPath, readMappingSet(mappings)), queue, progressLogger)));
+				}
+
+				RuntimeException failure = null;
+
+				for (Future<?> future : futures) {
+					try {
+						future.get();
+					} catch (ExecutionException e) {
+						final RuntimeException exception = e.getCause() instanceof RuntimeException runtimeException ? runtimeException : new RuntimeException("Failed to remap sources", e.getCause());
+
+						if (failure == null) {
+							failure = exception;
+						} else {
+							failure.addSuppressed(exception);
+						}
+					}
+				}
+
+				if (failure != null) {
+					throw failure;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted while remapping sources", e);
+			} finally {
+				executor.shutdownNow();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
 
-		remapTasks.forEach(consumer -> consumer.accept(progressLogger));
+	private static void runWorker(Mercury mercury, Queue<RemapTask> queue, ProgressLogger progressLogger) {
+		try {
+			RemapTask task;
 
-		progressLogger.completed();
+			while ((task = queue.poll()) != null) {
+				task.remap(mercury, progressLogger);
+			}
+		} finally {
+			progressLogger.completed();
+		}
+	}
 
-		// TODO: FIXME - WORKAROUND https://github.com/FabricMC/fabric-loom/issues/45
-		System.gc();
+	/**
+	 * @return the number of Mercury instances that can remap in parallel, limited by the processors and the heap size
+	 */
+	public static int getMaxWorkers() {
+		final long memoryWorkers = Runtime.getRuntime().maxMemory() / WORKER_MEMORY - 1;
+		return (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() / 2, memoryWorkers));
 	}
 
-	private void remapSourcesInner(File source, File destination) throws Exception {
+	private void remapSourcesInner(Mercury mercury, File source, File destination) throws Exception {
 		project.getLogger().info(":remapping source jar");
-		Mercury mercury = getMercuryInstance();
 
 		if (source.equals(destination)) {
 			if (source.isDirectory()) {
@@ -132,78 +201,83 @@ public class SourceRemapper {
 			}
 		}
 
-		FileSystemUtil.Delegate dstFs = destination.isDirectory() ? null : FileSystemUtil.getJarFileSystem(destination, true);
-		Path dstPath = dstFs != null ? dstFs.get().getPath("/") : destination.toPath();
+		try (FileSystemUtil.Delegate dstFs = destination.isDirectory() ? null : FileSystemUtil.getJarFileSystem(destination, true)) {
+			Path dstPath = dstFs != null ? dstFs.get().getPath("/") : destination.toPath();
 
-		try {
-			mercury.rewrite(srcPath, dstPath);
-		} catch (Exception e) {
-			project.getLogger().warn("Could not remap " + source.getName() + " fully!", e);
-		}
-
-		copyNonJavaFiles(srcPath, dstPath, project.getLogger(), source.toPath());
+			try {
+				mercury.rewrite(srcPath, dstPath);
+			} catch (Exception e) {
+				project.getLogger().warn("Could not remap " + source.getName() + " fully!", e);
+			}
 
-		if (dstFs != null) {
-			dstFs.close();
+			copyNonJavaFiles(srcPath, dstPath, project.getLogger(), source.toPath());
+		} finally {
+			if (isSrcTmp) {
+				Files.walkFileTree(srcPath, new DeletingFileVisitor());
+			}
 		}
+	}
 
-		if (isSrcTmp) {
-			Files.walkFileTree(srcPath, new DeletingFileVisitor());
+	private MemoryMappingTree getMappingTree() {
+		try {
+			return LoomGradleExtension.get(project).getMappingsProvider().getMappings();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
 		}
 	}
 
-	private Mercury getMercuryInstance() {
-		if (this.mercury != null) {
-			return this.mercury;
+	private MappingSet readMappingSet(MemoryMappingTree mappings) {
+		try {
+			return new TinyMappingsReader(mappings, toNamed ? MappingsNamespace.INTERMEDIARY.toString() : MappingsNamespace.NAMED.toString(), toNamed ? MappingsNamespace.NAMED.toString() : MappingsNamespace.INTERMEDIARY.toString()).read();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
 		}
+	}
 
+	private Mercury getMercuryInstance(List<Path> classPath) {
 		LoomGradleExtension extension = LoomGradleExtension.get(project);
-		MappingsProviderImpl mappingsProvider = extension.getMappingsProvider();
 
 		MappingSet mappings = extension.getOrCreateSrcMappingCache(toNamed ? 1 : 0, () -> {
-			try {
-				MemoryMappingTree m = mappingsProvider.getMappings();
-				project.getLogger().info(":loading " + (toNamed ? "intermediary -> named" : "named -> intermediary") + " source mappings");
-				return new TinyMappingsReader(m, toNamed ? MappingsNamespace.INTERMEDIARY.toString() : MappingsNamespace.NAMED.toString(), toNamed ? MappingsNamespace.NAMED.toString() : MappingsNamespace.INTERMEDIARY.toString()).read();
-			} catch (Exception e) {
-				throw new RuntimeException(e);
-			}
+			project.getLogger().info(":loading " + (toNamed ? "intermediary -> named" : "named -> intermediary") + " source mappings");
+			return readMappingSet(getMappingTree());
 		});
 
-		Mercury mercury = extension.getOrCreateSrcMercuryCache(toNamed ? 1 : 0, () -> {
-			Mercury m = createMercuryWithClassPath(project, toNamed);
+		return extension.getOrCreateSrcMercuryCache(toNamed ? 1 : 0, () -> createMercury(classPath, mappings));
+	}
 
-			for (File file : extension.getUnmappedModCollection()) {
-				Path path = file.toPath();
+	private List<Path> getClassPath() {
+		final LoomGradleExtension extension = LoomGradleExtension.get(project);
+		final List<Path> classPath = getClassPath(project, toNamed);
 
-				if (Files.isRegularFile(path)) {
-					m.getClassPath().add(path);
-				}
-			}
+		for (File file : extension.getUnmappedModCollection()) {
+			Path path = file.toPath();
 
-			for (Path intermediaryJar : extension.getMinecraftJars(MappingsNamespace.INTERMEDIARY)) {
-				m.getClassPath().add(intermediaryJar);
-			}
-
-			for (Path intermediaryJar : extension.getMinecraftJars(MappingsNamespace.NAMED)) {
-				m.getClassPath().add(intermediaryJar);
+			if (Files.isRegularFile(path)) {
+				classPath.add(path);
 			}
+		}
 
-			Set<File> files = project.getConfigurations()
-					.detachedConfiguration(project.getDependencies().create(Constants.Dependencies.JETBRAINS_ANNOTATIONS + Constants.Dependencies.Versions.JETBRAINS_ANNOTATIONS))
-					.resolve();
+		classPath.addAll(extension.getIntermediaryMinecraftProvider().provideMinecraftJars());
+		classPath.addAll(extension.getMinecraftJars(MappingsNamespace.NAMED));
 
-			for (File file : files) {
-				m.getClassPath().add(file.toPath());
-			}
+		Set<File> files = project.getConfigurations()
+				.detachedConfiguration(project.getDependencies().create(Constants.Dependencies.JETBRAINS_ANNOTATIONS + Constants.Dependencies.Versions.JETBRAINS_ANNOTATIONS))
+				.resolve();
 
-			m.getProcessors().add(MercuryRemapper.create(mappings));
+		for (File file : files) {
+			classPath.add(file.toPath());
+		}
 
-			return m;
-		});
+		return classPath;
+	}
 
-		this.mercury = mercury;
-		return mercury;
+	private static Mercury createMercury(List<Path> classPath, MappingSet mappings) {
+		Mercury m = new Mercury();
+		m.setGracefulClasspathChecks(true);
+		m.setSourceCompatibility(Constants.MERCURY_SOURCE_VERSION);
+		m.getClassPath().addAll(classPath);
+		m.getProcessors().add(MercuryRemapper.create(mappings));
+		return m;
 	}
 
 	public static void copyNonJavaFiles(Path from, Path to, Logger logger, Path source) throws IOException {
@@ -224,7 +298,11 @@ public class SourceRemapper {
 		Mercury m = new Mercury();
 		m.setGracefulClasspathChecks(true);
 		m.setSourceCompatibility(Constants.MERCURY_SOURCE_VERSION);
+		m.getClassPath().addAll(getClassPath(project, toNamed));
+		return m;
+	}
 
+	private static List<Path> getClassPath(Project project, boolean toNamed) {
 		final List<Path> classPath = new ArrayList<>();
 
 		for (File file : project.getConfigurations().getByName(Constants.Configurations.LOADER_DEPENDENCIES).getFiles()) {
@@ -245,13 +323,13 @@ public class SourceRemapper {
 			}
 		}
 
-		for (Path path : classPath) {
-			if (Files.exists(path)) {
-				m.getClassPath().add(path);
-			}
-		}
+		classPath.removeIf(Files::notExists);
+		return classPath;
+	}
 
-		return m;
+	@FunctionalInterface
+	private interface RemapTask {
+		void remap(Mercury mercury, ProgressLogger logger);
 	}
 
 	private static boolean isJavaFile(Path path) {
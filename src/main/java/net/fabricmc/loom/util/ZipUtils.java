@@ -41,7 +41,9 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
+import java.util.zip.ZipFile;
 
 import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.ClassReader;
@@ -77,6 +79,15 @@ public class ZipUtils {
 		}
 	}
 
+	/**
+	 * Counts the entries matching the filter, using only the zip's central directory.
+	 */
+	public static int count(Path zip, Predicate<String> filter) throws IOException {
+		try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+			return (int) zipFile.stream().filter(entry -> filter.test(entry.getName())).count();
+		}
+	}
+
 	public static void unpackAll(Path zip, Path output) throws IOException {
 		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(zip, false);
 				Stream<Path> walk = Files.walk(fs.get().getPath("/"))) {
@@ -0,0 +1,97 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.gradle;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.gradle.workers.internal.WorkerDaemonClientsManager;
+
+/**
+ * Stops reused worker JVMs once they have been idle for too long, also after the build that used them has finished.
+ *
+ * <p>The scheduler lives as long as the Gradle daemon, but its thread only runs while a stop is pending. Only the marker
+ * values and weak references to the worker managers are held, so that nothing of a finished build is kept alive.
+ */
+public final class IdleWorkerReaper {
+	private static final ScheduledThreadPoolExecutor EXECUTOR = createExecutor();
+	private static final Map<String, ScheduledFuture<?>> SCHEDULED_STOPS = new ConcurrentHashMap<>();
+
+	private IdleWorkerReaper() {
+	}
+
+	private static ScheduledThreadPoolExecutor createExecutor() {
+		final var executor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder().setNameFormat("loom-idle-worker-reaper").setDaemon(true).build());
+		// The thread exits once no stop is pending, rather than idling for the lifetime of the daemon.
+		executor.setKeepAliveTime(1, TimeUnit.MINUTES);
+		executor.allowCoreThreadTimeOut(true);
+		executor.setRemoveOnCancelPolicy(true);
+		return executor;
+	}
+
+	/**
+	 * Stops the JVM once it has been idle for the given timeout, replacing any stop previously scheduled for it.
+	 * Used to keep a reused worker JVM warm between builds.
+	 */
+	public static void stopIdleJVMAfter(WorkerDaemonClientsManager manager, String jvmMarkerValue, Duration timeout) {
+		final WeakReference<WorkerDaemonClientsManager> managerReference = new WeakReference<>(manager);
+		final ScheduledFuture<?>[] self = new ScheduledFuture<?>[1];
+
+		synchronized (SCHEDULED_STOPS) {
+			self[0] = EXECUTOR.schedule(() -> {
+				SCHEDULED_STOPS.remove(jvmMarkerValue, self[0]);
+				final WorkerDaemonClientsManager workerManager = managerReference.get();
+
+				// A collected manager has already stopped its workers along with the daemon services.
+				if (workerManager != null) {
+					WorkerDaemonClientsManagerHelper.stopIdleJVM(workerManager, jvmMarkerValue);
+				}
+			}, timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+			cancel(SCHEDULED_STOPS.put(jvmMarkerValue, self[0]));
+		}
+	}
+
+	/**
+	 * Cancels the scheduled stop of the JVM, should be called before submitting work to a reused worker JVM.
+	 */
+	public static void cancelScheduledStop(String jvmMarkerValue) {
+		synchronized (SCHEDULED_STOPS) {
+			cancel(SCHEDULED_STOPS.remove(jvmMarkerValue));
+		}
+	}
+
+	private static void cancel(ScheduledFuture<?> future) {
+		if (future != null) {
+			future.cancel(false);
+		}
+	}
+}
@@ -26,27 +26,25 @@ package net.fabricmc.loom.util.gradle;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
-import java.util.function.Consumer;
 
 import org.gradle.api.Project;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.internal.logging.progress.ProgressLogger;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
 
-public class ThreadedProgressLoggerConsumer implements Consumer<String>, AutoCloseable {
-	public static final String CLOSE_LOGGERS = "LOOM_CLOSE_LOGGERS";
+import net.fabricmc.loom.util.ipc.IPCMessageHandler;
 
-	private final Project project;
+public class ThreadedProgressLoggerConsumer implements IPCMessageHandler, AutoCloseable {
 	private final String name;
 	private final String desc;
 
 	private final ProgressLoggerFactory progressLoggerFactory;
 	private final ProgressLogger progressGroup;
-	private final Map<String, ProgressLogger> loggers = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Long, ProgressLogger> loggers = Collections.synchronizedMap(new HashMap<>());
 
 	public ThreadedProgressLoggerConsumer(Project project, String name, String desc) {
-		this.project = project;
 		this.name = name;
 		this.desc = desc;
 
@@ -56,25 +54,21 @@ public class ThreadedProgressLoggerConsumer implements Consumer<String>, AutoClo
 	}
 
 	@Override
-	public void accept(String line) {
-		if (!line.contains("::")) {
-			project.getLogger().debug("Malformed threaded IPC log message: " + line);
-			return;
-		}
-
-		int idx = line.indexOf("::");
-		String id = line.substring(0, idx).trim();
-		String data = line.substring(idx + 2).trim();
+	public void log(long threadId, String message) {
+		loggers.computeIfAbsent(threadId, this::createLogger).progress(message);
+	}
 
-		if (data.equals(CLOSE_LOGGERS)) {
-			resetLoggers();
-			return;
-		}
+	@Override
+	public void progress(long threadId, int index, int total) {
+		progressGroup.progress(String.format(Locale.ENGLISH, "%d/%d", index, total));
+	}
 
-		loggers.computeIfAbsent(id, this::createLogger).progress(data);
+	@Override
+	public void closeLoggers() {
+		resetLoggers();
 	}
 
-	private ProgressLogger createLogger(String id) {
+	private ProgressLogger createLogger(long threadId) {
 		ProgressLogger progressLogger = progressLoggerFactory.newOperation(getClass(), progressGroup);
 		progressLogger.setDescription(desc);
 		progressLogger.started();
@@ -30,16 +30,33 @@ import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import net.fabricmc.loom.util.IOStringConsumer;
 
+/**
+ * Sends messages to an {@link IPCServer}, see {@link IPCProtocol} for the format.
+ *
+ * <p>Messages are coalesced into a buffer that is written to the socket once it is full, or periodically by a background thread.
+ */
 public final class IPCClient implements IOStringConsumer, AutoCloseable {
+	private static final int FLUSH_INTERVAL_MS = 50;
+
 	private final Path path;
 	private final SocketChannel socketChannel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(IPCProtocol.BUFFER_SIZE);
+	private final ScheduledExecutorService flushService = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("loom-ipc-flush").setDaemon(true).build()
+	);
 
 	public IPCClient(Path path) throws IOException {
 		this.path = path;
 		socketChannel = setupChannel();
+		flushService.scheduleWithFixedDelay(this::periodicFlush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
 	}
 
 	private SocketChannel setupChannel() throws IOException {
@@ -49,18 +66,96 @@ public final class IPCClient implements IOStringConsumer, AutoCloseable {
 
 	@Override
 	public void accept(String s) throws IOException {
-		synchronized (socketChannel) {
-			ByteBuffer buf = ByteBuffer.wrap((s + "\n").getBytes(StandardCharsets.UTF_8));
+		final byte[] message = s.getBytes(StandardCharsets.UTF_8);
+		final long threadId = Thread.currentThread().getId();
 
-			while (buf.hasRemaining()) {
-				socketChannel.write(buf);
+		synchronized (buffer) {
+			final int frameLength = IPCProtocol.HEADER_SIZE + message.length;
+
+			if (Integer.BYTES + frameLength > buffer.capacity()) {
+				// Too large to coalesce, send on its own.
+				flush();
+
+				final ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + frameLength);
+				IPCProtocol.writeHeader(frame, frameLength, IPCProtocol.LOG, threadId);
+				frame.put(message).flip();
+				write(frame);
+				return;
 			}
+
+			reserve(frameLength);
+			IPCProtocol.writeHeader(buffer, frameLength, IPCProtocol.LOG, threadId);
+			buffer.put(message);
+		}
+	}
+
+	@Override
+	public void progress(int index, int total) throws IOException {
+		final long threadId = Thread.currentThread().getId();
+
+		synchronized (buffer) {
+			final int frameLength = IPCProtocol.HEADER_SIZE + Integer.BYTES * 2;
+
+			reserve(frameLength);
+			IPCProtocol.writeHeader(buffer, frameLength, IPCProtocol.PROGRESS, threadId);
+			buffer.putInt(index).putInt(total);
+		}
+	}
+
+	/**
+	 * Tells the server that all the current threads have completed their work.
+	 */
+	public void closeLoggers() throws IOException {
+		synchronized (buffer) {
+			reserve(IPCProtocol.HEADER_SIZE);
+			IPCProtocol.writeHeader(buffer, IPCProtocol.HEADER_SIZE, IPCProtocol.CLOSE_LOGGERS, Thread.currentThread().getId());
+		}
+	}
+
+	/**
+	 * Writes all buffered messages to the socket.
+	 */
+	public void flush() throws IOException {
+		synchronized (buffer) {
+			if (buffer.position() == 0) {
+				return;
+			}
+
+			buffer.flip();
+			write(buffer);
+			buffer.clear();
+		}
+	}
+
+	// Ensures there is space for the frame and its length prefix, flushing if needed.
+	private void reserve(int frameLength) throws IOException {
+		if (buffer.remaining() < Integer.BYTES + frameLength) {
+			flush();
+		}
+	}
+
+	private void write(ByteBuffer buf) throws IOException {
+		while (buf.hasRemaining()) {
+			socketChannel.write(buf);
+		}
+	}
+
+	private void periodicFlush() {
+		try {
+			flush();
+		} catch (IOException e) {
+			// The next write or close will report the error.
 		}
 	}
 
 	@Override
 	public void close() throws Exception {
-		synchronized (socketChannel) {
+		// Not interrupted, as that would close the channel while it may be writing.
+		flushService.shutdown();
+		flushService.awaitTermination(10, TimeUnit.SECONDS);
+
+		synchronized (buffer) {
+			flush();
 			socketChannel.close();
 		}
 	}
@@ -1,7 +1,7 @@
 /*
  * This file is part of fabric-loom, licensed under the MIT License (MIT).
  *
- * Copyright (c) 2021 FabricMC
+ * Copyright (c) 2022 FabricMC
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -22,16 +22,17 @@
  * SOFTWARE.
  */
 
-package net.fabricmc.loom.util.gradle;
+package net.fabricmc.loom.util.ipc;
 
-import java.io.IOException;
-import java.util.Locale;
+/**
+ * Receives the messages sent by an {@link IPCClient}, called from the {@link IPCServer}'s receiver thread.
+ */
+public interface IPCMessageHandler {
+	void log(long threadId, String message);
 
-import net.fabricmc.loom.util.IOStringConsumer;
+	default void progress(long threadId, int index, int total) {
+	}
 
-public record ThreadedSimpleProgressLogger(IOStringConsumer parent) implements IOStringConsumer {
-	@Override
-	public void accept(String data) throws IOException {
-		parent.accept(String.format(Locale.ENGLISH, "%d::%s", Thread.currentThread().getId(), data));
+	default void closeLoggers() {
 	}
 }
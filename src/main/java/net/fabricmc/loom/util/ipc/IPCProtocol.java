@@ -0,0 +1,57 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.ipc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The binary format used between {@link IPCClient} and {@link IPCServer}.
+ *
+ * <p>Each frame is prefixed by its length as an int, followed by the message type as a byte and the id of the sending thread as a long.
+ * The remaining bytes depend on the type:
+ * <ul>
+ *     <li>{@link #LOG}: the UTF-8 encoded message.</li>
+ *     <li>{@link #PROGRESS}: the index and total as ints.</li>
+ *     <li>{@link #CLOSE_LOGGERS}: nothing.</li>
+ * </ul>
+ */
+final class IPCProtocol {
+	static final byte LOG = 0;
+	static final byte PROGRESS = 1;
+	static final byte CLOSE_LOGGERS = 2;
+
+	// Type and thread id, excluding the length prefix.
+	static final int HEADER_SIZE = Byte.BYTES + Long.BYTES;
+	static final int BUFFER_SIZE = 64 * 1024;
+
+	private IPCProtocol() {
+	}
+
+	static void writeHeader(ByteBuffer buffer, int frameLength, byte type, long threadId) {
+		buffer.putInt(frameLength);
+		buffer.put(type);
+		buffer.putLong(threadId);
+	}
+}
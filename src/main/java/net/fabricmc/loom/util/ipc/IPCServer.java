@@ -24,15 +24,19 @@
 
 package net.fabricmc.loom.util.ipc;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.StandardProtocolFamily;
 import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.util.Scanner;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -42,15 +46,15 @@ import java.util.function.Consumer;
 public class IPCServer implements AutoCloseable {
 	private final ExecutorService loggerReceiverService = Executors.newSingleThreadExecutor();
 	private final Path path;
-	private final Consumer<String> consumer;
+	private final IPCMessageHandler handler;
 
 	private final CountDownLatch startupLock = new CountDownLatch(1);
 
-	private boolean receivedMessage = false;
+	private volatile boolean receivedMessage = false;
 
-	public IPCServer(Path path, Consumer<String> consumer) {
+	public IPCServer(Path path, IPCMessageHandler handler) {
 		this.path = path;
-		this.consumer = consumer;
+		this.handler = handler;
 
 		loggerReceiverService.submit(this::run);
 
@@ -61,6 +65,13 @@ public class IPCServer implements AutoCloseable {
 		}
 	}
 
+	/**
+	 * Creates a server that only receives the log messages.
+	 */
+	public IPCServer(Path path, Consumer<String> consumer) {
+		this(path, (threadId, message) -> consumer.accept(message));
+	}
+
 	public void run() {
 		UnixDomainSocketAddress address = UnixDomainSocketAddress.of(path);
 
@@ -70,19 +81,37 @@ public class IPCServer implements AutoCloseable {
 			startupLock.countDown();
 
 			try (SocketChannel clientChannel = serverChannel.accept();
-					Scanner scanner = new Scanner(clientChannel, StandardCharsets.UTF_8)) {
+					DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(clientChannel), IPCProtocol.BUFFER_SIZE))) {
 				while (!Thread.currentThread().isInterrupted()) {
-					if (scanner.hasNextLine()) {
-						receivedMessage = true;
-						this.consumer.accept(scanner.nextLine());
-					}
+					readFrame(input);
 				}
 			}
+		} catch (EOFException | ClosedByInterruptException e) {
+			// The client disconnected, or the server was closed.
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to listen for IPC messages", e);
 		}
 	}
 
+	private void readFrame(DataInputStream input) throws IOException {
+		final int frameLength = input.readInt();
+		final byte type = input.readByte();
+		final long threadId = input.readLong();
+
+		receivedMessage = true;
+
+		switch (type) {
+		case IPCProtocol.LOG -> {
+			final byte[] message = new byte[frameLength - IPCProtocol.HEADER_SIZE];
+			input.readFully(message);
+			handler.log(threadId, new String(message, StandardCharsets.UTF_8));
+		}
+		case IPCProtocol.PROGRESS -> handler.progress(threadId, input.readInt(), input.readInt());
+		case IPCProtocol.CLOSE_LOGGERS -> handler.closeLoggers();
+		default -> input.skipNBytes(frameLength - IPCProtocol.HEADER_SIZE);
+		}
+	}
+
 	@Override
 	public void close() throws InterruptedException {
 		loggerReceiverService.shutdownNow();
@@ -35,6 +35,8 @@ import org.gradle.BuildResult;
 import org.gradle.api.Project;
 import org.gradle.api.invocation.Gradle;
 
+import net.fabricmc.loom.util.Checksum;
+
 /**
  * A simple manager for {@link SharedService} to be used across gradle (sub) projects.
  * This is a basic replacement for gradle's build service api.
@@ -44,6 +46,8 @@ public final class SharedServiceManager {
 	private final Gradle gradle;
 
 	private final Map<String, SharedService> sharedServiceMap = new ConcurrentHashMap<>();
+	// Services are created while holding a lock for their id, so that services with different ids can be created concurrently.
+	private final Map<String, Object> creationLocks = new ConcurrentHashMap<>();
 
 	private boolean shutdown = false;
 
@@ -61,16 +65,22 @@ public final class SharedServiceManager {
 	}
 
 	public <S extends SharedService> S getOrCreateService(String id, Supplier<S> function) {
-		synchronized (sharedServiceMap) {
-			if (shutdown) {
-				throw new UnsupportedOperationException("Cannot get or create service has the manager has been shutdown.");
+		synchronized (creationLocks.computeIfAbsent(id, k -> new Object())) {
+			synchronized (sharedServiceMap) {
+				checkNotShutdown();
+
+				//noinspection unchecked
+				S sharedService = (S) sharedServiceMap.get(id);
+
+				if (sharedService != null) {
+					return sharedService;
+				}
 			}
 
-			//noinspection unchecked
-			S sharedService = (S) sharedServiceMap.get(id);
+			final S sharedService = function.get();
 
-			if (sharedService == null) {
-				sharedService = function.get();
+			synchronized (sharedServiceMap) {
+				checkNotShutdown();
 				sharedServiceMap.put(id, sharedService);
 			}
 
@@ -78,6 +88,12 @@ public final class SharedServiceManager {
 		}
 	}
 
+	private void checkNotShutdown() {
+		if (shutdown) {
+			throw new UnsupportedOperationException("Cannot get or create service has the manager has been shutdown.");
+		}
+	}
+
 	private void onFinish(BuildResult buildResult) {
 		synchronized (sharedServiceMap) {
 			shutdown = true;
@@ -97,6 +113,9 @@ public final class SharedServiceManager {
 
 		sharedServiceMap.clear();
 
+		// The file hashes are only memoized for the duration of the build.
+		Checksum.clearCache();
+
 		if (!exceptionList.isEmpty()) {
 			// Done to try and close all the services.
 			RuntimeException exception = new RuntimeException("Failed to close all shared services");
@@ -0,0 +1,336 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.zip;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A zip file read directly from its central directory, allowing entries to be copied without being inflated.
+ *
+ * <p>Reads are positional so a single instance can be used from multiple threads. Zip64 and encrypted archives are not supported.
+ */
+public final class RawZipFile implements Closeable {
+	static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	static final int END_SIGNATURE = 0x06054b50;
+	static final int LOCAL_HEADER_SIZE = 30;
+	static final int CENTRAL_HEADER_SIZE = 46;
+	static final int END_SIZE = 22;
+	static final int STORED = 0;
+	static final int DEFLATED = 8;
+
+	private final Path path;
+	private final FileChannel channel;
+	private final List<Entry> entries;
+	private final Map<String, Entry> entriesByName;
+
+	private RawZipFile(Path path, FileChannel channel) throws IOException {
+		this.path = path;
+		this.channel = channel;
+		this.entries = Collections.unmodifiableList(readCentralDirectory());
+
+		final Map<String, Entry> byName = new HashMap<>(entries.size());
+
+		for (Entry entry : entries) {
+			byName.put(entry.name(), entry);
+		}
+
+		this.entriesByName = byName;
+	}
+
+	public static RawZipFile open(Path path) throws IOException {
+		final FileChannel channel = FileChannel.open(path);
+
+		try {
+			return new RawZipFile(path, channel);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the entries, in the order of the central directory
+	 */
+	public List<Entry> entries() {
+		return entries;
+	}
+
+	@Nullable
+	public Entry getEntry(String name) {
+		return entriesByName.get(name);
+	}
+
+	/**
+	 * Transfers the stored, possibly compressed, data of the entry to the target.
+	 */
+	public void transferCompressed(Entry entry, WritableByteChannel target) throws IOException {
+		long position = getDataOffset(entry);
+		long remaining = entry.compressedSize();
+
+		while (remaining > 0) {
+			final long transferred = channel.transferTo(position, remaining, target);
+
+			if (transferred <= 0) {
+				throw new ZipException("Unexpected end of entry %s in %s".formatted(entry.name(), path));
+			}
+
+			position += transferred;
+			remaining -= transferred;
+		}
+	}
+
+	/**
+	 * Reads and inflates the contents of the entry.
+	 */
+	public byte[] readBytes(Entry entry) throws IOException {
+		final ByteBuffer compressed = ByteBuffer.allocate(Math.toIntExact(entry.compressedSize()));
+		readFully(compressed, getDataOffset(entry));
+
+		if (entry.method() == STORED) {
+			return compressed.array();
+		}
+
+		final byte[] data = new byte[Math.toIntExact(entry.size())];
+		final Inflater inflater = new Inflater(true);
+
+		try {
+			inflater.setInput(compressed.array());
+			int read = 0;
+
+			while (read < data.length) {
+				final int inflated = inflater.inflate(data, read, data.length - read);
+
+				if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+					throw new ZipException("Truncated entry %s in %s".formatted(entry.name(), path));
+				}
+
+				read += inflated;
+			}
+		} catch (DataFormatException e) {
+			throw new ZipException("Invalid data in entry %s of %s: %s".formatted(entry.name(), path, e.getMessage()));
+		} finally {
+			inflater.end();
+		}
+
+		return data;
+	}
+
+	/**
+	 * Opens a stream of the inflated contents of the entry, reading the file as the stream is consumed.
+	 */
+	public InputStream openInputStream(Entry entry) throws IOException {
+		final EntryInputStream stored = new EntryInputStream(getDataOffset(entry), entry.compressedSize(), entry.method() == DEFLATED);
+
+		if (entry.method() == STORED) {
+			return stored;
+		}
+
+		return new InflaterInputStream(stored, new Inflater(true), 8192) {
+			@Override
+			public void close() throws IOException {
+				super.close();
+				inf.end();
+			}
+		};
+	}
+
+	private long getDataOffset(Entry entry) throws IOException {
+		final ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(header, entry.localHeaderOffset());
+
+		if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+			throw new ZipException("Invalid local header for %s in %s".formatted(entry.name(), path));
+		}
+
+		final int nameLength = Short.toUnsignedInt(header.getShort(26));
+		final int extraLength = Short.toUnsignedInt(header.getShort(28));
+		return entry.localHeaderOffset() + LOCAL_HEADER_SIZE + nameLength + extraLength;
+	}
+
+	private List<Entry> readCentralDirectory() throws IOException {
+		final ByteBuffer end = findEndOfCentralDirectory();
+		final int entryCount = Short.toUnsignedInt(end.getShort(10));
+		final long size = Integer.toUnsignedLong(end.getInt(12));
+		final long offset = Integer.toUnsignedLong(end.getInt(16));
+
+		if (entryCount == 0xFFFF || size == 0xFFFFFFFFL || offset == 0xFFFFFFFFL) {
+			throw new ZipException("Zip64 is not supported: " + path);
+		}
+
+		final ByteBuffer directory = ByteBuffer.allocate(Math.toIntExact(size)).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(directory, offset);
+		directory.flip();
+
+		final List<Entry> entries = new ArrayList<>(entryCount);
+
+		for (int i = 0; i < entryCount; i++) {
+			final int start = directory.position();
+
+			if (directory.getInt(start) != CENTRAL_HEADER_SIGNATURE) {
+				throw new ZipException("Invalid central directory header in " + path);
+			}
+
+			final int flags = Short.toUnsignedInt(directory.getShort(start + 8));
+			final int method = Short.toUnsignedInt(directory.getShort(start + 10));
+			final int dosTime = directory.getInt(start + 12);
+			final int crc = directory.getInt(start + 16);
+			final long compressedSize = Integer.toUnsignedLong(directory.getInt(start + 20));
+			final long uncompressedSize = Integer.toUnsignedLong(directory.getInt(start + 24));
+			final int nameLength = Short.toUnsignedInt(directory.getShort(start + 28));
+			final int extraLength = Short.toUnsignedInt(directory.getShort(start + 30));
+			final int commentLength = Short.toUnsignedInt(directory.getShort(start + 32));
+			final long localHeaderOffset = Integer.toUnsignedLong(directory.getInt(start + 42));
+
+			if ((flags & 1) != 0) {
+				throw new ZipException("Encrypted entries are not supported: " + path);
+			}
+
+			if (method != STORED && method != DEFLATED) {
+				throw new ZipException("Unsupported compression method %d in %s".formatted(method, path));
+			}
+
+			final byte[] name = new byte[nameLength];
+			directory.position(start + CENTRAL_HEADER_SIZE);
+			directory.get(name);
+			directory.position(start + CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength);
+
+			entries.add(new Entry(new String(name, StandardCharsets.UTF_8), flags, method, dosTime, crc, compressedSize, uncompressedSize, localHeaderOffset));
+		}
+
+		return entries;
+	}
+
+	private ByteBuffer findEndOfCentralDirectory() throws IOException {
+		final long fileSize = channel.size();
+		// The record is followed by a comment of at most 65535 bytes.
+		final int searchLength = (int) Math.min(fileSize, END_SIZE + 0xFFFF);
+		final ByteBuffer tail = ByteBuffer.allocate(searchLength).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(tail, fileSize - searchLength);
+
+		for (int i = searchLength - END_SIZE; i >= 0; i--) {
+			if (tail.getInt(i) == END_SIGNATURE) {
+				return tail.slice(i, END_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			}
+		}
+
+		throw new ZipException("Could not find the end of the central directory in " + path);
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			final int read = channel.read(buffer, position);
+
+			if (read < 0) {
+				throw new ZipException("Unexpected end of file " + path);
+			}
+
+			position += read;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	// Positional reads of the stored data of an entry.
+	private final class EntryInputStream extends InputStream {
+		private final boolean dummyByte;
+		private long position;
+		private long remaining;
+		private boolean dummyRead = false;
+
+		private EntryInputStream(long position, long length, boolean dummyByte) {
+			this.position = position;
+			this.remaining = length;
+			this.dummyByte = dummyByte;
+		}
+
+		@Override
+		public int read() throws IOException {
+			final byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+
+			if (remaining == 0) {
+				// The inflater needs an extra byte when reading raw deflate data, as done by ZipFile.
+				if (dummyByte && !dummyRead) {
+					dummyRead = true;
+					b[off] = 0;
+					return 1;
+				}
+
+				return -1;
+			}
+
+			final int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), position);
+
+			if (read < 0) {
+				throw new ZipException("Unexpected end of file " + path);
+			}
+
+			position += read;
+			remaining -= read;
+			return read;
+		}
+	}
+
+	/**
+	 * An entry as described by the central directory.
+	 *
+	 * @param dosTime the MS-DOS date in the high 16 bits and time in the low 16 bits
+	 */
+	public record Entry(String name, int flags, int method, int dosTime, int crc, long compressedSize, long size, long localHeaderOffset) {
+		public boolean isDirectory() {
+			return name.endsWith("/");
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.zip;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+/**
+ * Writes a zip file, either from entries copied as is from a {@link RawZipFile} or from uncompressed data.
+ *
+ * <p>Not thread safe, entries are written in the order they are added.
+ */
+public final class RawZipWriter implements Closeable {
+	// 1980-02-01 00:00 as an MS-DOS date and time, matching the constant time used by Gradle for reproducible archives.
+	private static final int CONSTANT_DOS_TIME = ((1980 - 1980) << 9 | 2 << 5 | 1) << 16;
+	private static final int VERSION = 20;
+	// Entry names are UTF-8, and sizes are always known before the data is written.
+	private static final int UTF8_FLAG = 1 << 11;
+	private static final int DATA_DESCRIPTOR_FLAG = 1 << 3;
+
+	private final Path path;
+	private final FileChannel channel;
+	private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+	private int entryCount = 0;
+
+	public RawZipWriter(Path path) throws IOException {
+		this.path = path;
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+	}
+
+	/**
+	 * Copies an entry without inflating it.
+	 */
+	public void copyEntry(RawZipFile source, RawZipFile.Entry entry) throws IOException {
+		final int flags = (entry.flags() & ~DATA_DESCRIPTOR_FLAG) | UTF8_FLAG;
+		writeHeaders(entry.name(), flags, entry.method(), entry.dosTime(), entry.crc(), entry.compressedSize(), entry.size());
+		source.transferCompressed(entry, channel);
+	}
+
+	/**
+	 * Writes a directory entry.
+	 */
+	public void putDirectory(String name) throws IOException {
+		if (!name.endsWith("/")) {
+			name += "/";
+		}
+
+		writeHeaders(name, UTF8_FLAG, RawZipFile.STORED, CONSTANT_DOS_TIME, 0, 0, 0);
+	}
+
+	/**
+	 * Compresses and writes an entry.
+	 */
+	public void putEntry(String name, byte[] data) throws IOException {
+		putEntry(name, compress(data), CONSTANT_DOS_TIME);
+	}
+
+	/**
+	 * Writes an entry compressed ahead of time with {@link #compress(byte[])}.
+	 *
+	 * @param dosTime the MS-DOS date and time of the entry, see {@link RawZipFile.Entry#dosTime()}
+	 */
+	public void putEntry(String name, CompressedData data, int dosTime) throws IOException {
+		writeHeaders(name, UTF8_FLAG, RawZipFile.DEFLATED, dosTime, data.crc(), data.compressed().length, data.size());
+		write(ByteBuffer.wrap(data.compressed()));
+	}
+
+	/**
+	 * Deflates the data to be written later, can be called from any thread.
+	 */
+	public static CompressedData compress(byte[] data) {
+		final CRC32 crc = new CRC32();
+		crc.update(data);
+
+		final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		final ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+		final byte[] buffer = new byte[8192];
+
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+
+			while (!deflater.finished()) {
+				final int length = deflater.deflate(buffer);
+				compressed.write(buffer, 0, length);
+			}
+		} finally {
+			deflater.end();
+		}
+
+		return new CompressedData(compressed.toByteArray(), (int) crc.getValue(), data.length);
+	}
+
+	private void writeHeaders(String name, int flags, int method, int dosTime, int crc, long compressedSize, long size) throws IOException {
+		final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		final long offset = channel.position();
+
+		if (entryCount == 0xFFFF || offset + compressedSize >= 0xFFFFFFFFL || size >= 0xFFFFFFFFL) {
+			throw new ZipException("Zip64 is not supported: " + path);
+		}
+
+		final ByteBuffer local = ByteBuffer.allocate(RawZipFile.LOCAL_HEADER_SIZE + nameBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+		local.putInt(RawZipFile.LOCAL_HEADER_SIGNATURE)
+				.putShort((short) VERSION)
+				.putShort((short) flags)
+				.putShort((short) method)
+				.putInt(dosTime)
+				.putInt(crc)
+				.putInt((int) compressedSize)
+				.putInt((int) size)
+				.putShort((short) nameBytes.length)
+				.putShort((short) 0)
+				.put(nameBytes)
+				.flip();
+		write(local);
+
+		final ByteBuffer central = ByteBuffer.allocate(RawZipFile.CENTRAL_HEADER_SIZE + nameBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+		central.putInt(RawZipFile.CENTRAL_HEADER_SIGNATURE)
+				.putShort((short) VERSION)
+				.putShort((short) VERSION)
+				.putShort((short) flags)
+				.putShort((short) method)
+				.putInt(dosTime)
+				.putInt(crc)
+				.putInt((int) compressedSize)
+				.putInt((int) size)
+				.putShort((short) nameBytes.length)
+				.putShort((short) 0) // extra
+				.putShort((short) 0) // comment
+				.putShort((short) 0) // disk
+				.putShort((short) 0) // internal attributes
+				.putInt(0) // external attributes
+				.putInt((int) offset)
+				.put(nameBytes);
+		centralDirectory.write(central.array(), 0, central.position());
+		entryCount++;
+	}
+
+	private void write(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try (channel) {
+			final long offset = channel.position();
+			write(ByteBuffer.wrap(centralDirectory.toByteArray()));
+
+			final ByteBuffer end = ByteBuffer.allocate(RawZipFile.END_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			end.putInt(RawZipFile.END_SIGNATURE)
+					.putShort((short) 0)
+					.putShort((short) 0)
+					.putShort((short) entryCount)
+					.putShort((short) entryCount)
+					.putInt(centralDirectory.size())
+					.putInt((int) offset)
+					.putShort((short) 0)
+					.flip();
+			write(end);
+		}
+	}
+
+	public record CompressedData(byte[] compressed, int crc, int size) {
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.benchmark
+
+import com.google.common.hash.Hashing
+import net.fabricmc.loom.util.Checksum
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ * Compares hashing a jar the size of the merged Minecraft jar through a Guava byte source and through {@link Checksum}.
+ * Optionally pass the size of the file in MiB and the number of iterations as arguments.
+ */
+@Singleton
+class ChecksumBenchmark {
+    def run(int sizeMiB, int iterations) {
+        def path = Files.createTempFile("loom-checksum", ".jar")
+        def random = new Random(42)
+        def chunk = new byte[1024 * 1024]
+
+        Files.newOutputStream(path).withCloseable { out ->
+            sizeMiB.times {
+                random.nextBytes(chunk)
+                out.write(chunk)
+            }
+        }
+
+        // Warm up
+        3.times {
+            guava(path)
+            Checksum.clearCache()
+            Checksum.sha256Hex(path)
+        }
+
+        measure("Guava byte source", iterations) {
+            guava(path)
+        }
+
+        measure("Checksum (cold)", iterations) {
+            Checksum.clearCache()
+            Checksum.sha256Hex(path)
+        }
+
+        measure("Checksum (memoized)", iterations) {
+            Checksum.sha256Hex(path)
+        }
+
+        Files.delete(path)
+    }
+
+    private static String guava(Path path) {
+        return com.google.common.io.Files.asByteSource(path.toFile()).hash(Hashing.sha256()).toString()
+    }
+
+    private static void measure(String name, int iterations, Closure closure) {
+        def timeStart = System.nanoTime()
+
+        iterations.times {
+            closure()
+        }
+
+        def millis = (System.nanoTime() - timeStart) / 1_000_000 / iterations
+        println("${name}: ${millis}ms per hash")
+    }
+
+    static void main(String[] args) {
+        def size = args.length > 0 ? args[0] as int : 50
+        def iterations = args.length > 1 ? args[1] as int : 10
+        getInstance().run(size, iterations)
+        System.exit(0)
+    }
+}
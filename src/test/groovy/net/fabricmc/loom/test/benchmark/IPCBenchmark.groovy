@@ -0,0 +1,87 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.benchmark
+
+import net.fabricmc.loom.util.ipc.IPCClient
+import net.fabricmc.loom.util.ipc.IPCMessageHandler
+import net.fabricmc.loom.util.ipc.IPCServer
+
+import java.nio.file.Files
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Measures the throughput of the decompiler log IPC over a local unix domain socket.
+ * Optionally pass the number of threads and messages per thread as arguments.
+ */
+@Singleton
+class IPCBenchmark {
+    def run(int threads, int messagesPerThread) {
+        def path = Files.createTempFile("loom", "ipc")
+        Files.deleteIfExists(path)
+
+        def total = (long) threads * messagesPerThread
+        def received = new AtomicLong()
+        def handler = { long threadId, String message ->
+            received.incrementAndGet()
+        } as IPCMessageHandler
+
+        def server = new IPCServer(path, handler)
+        def timeStart = System.nanoTime()
+
+        new IPCClient(path).withCloseable { client ->
+            def latch = new CountDownLatch(threads)
+
+            threads.times { thread ->
+                Thread.start {
+                    for (int i = 0; i < messagesPerThread; i++) {
+                        client.accept("Decompiling net/minecraft/class_${thread}_${i}")
+                    }
+
+                    latch.countDown()
+                }
+            }
+
+            latch.await()
+        }
+
+        while (received.get() != total) {
+            Thread.onSpinWait()
+        }
+
+        def seconds = (System.nanoTime() - timeStart) / 1_000_000_000
+        server.close()
+        Files.deleteIfExists(path)
+
+        println("Received ${total} messages in ${seconds}s (${(long) (total / seconds)} messages/s)")
+    }
+
+    static void main(String[] args) {
+        def threads = args.length > 0 ? args[0] as int : Runtime.runtime.availableProcessors()
+        def messages = args.length > 1 ? args[1] as int : 100_000
+        getInstance().run(threads, messages)
+        System.exit(0)
+    }
+}
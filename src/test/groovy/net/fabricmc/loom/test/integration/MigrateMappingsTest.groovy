@@ -42,7 +42,29 @@ class MigrateMappingsTest extends Specification implements GradleProjectTestTrai
 
         then:
             result.task(":migrateMappings").outcome == SUCCESS
-            // TODO check it actually did something
+            result.output.contains(":remapping 2 of 2 source files")
+            new File(gradle.projectDir, "remappedSrc/net/fabricmc/example/ExampleMod.java").exists()
+
+        when:
+            def remapped = new File(gradle.projectDir, "remappedSrc/net/fabricmc/example/ExampleMod.java").text
+            new File(gradle.projectDir, "remappedSrc").deleteDir()
+            result = gradle.run(tasks: ["migrateMappings", "--mappings", "21w38a+build.10"])
+
+        then:
+            // The unchanged sources are served from the cache
+            result.task(":migrateMappings").outcome == SUCCESS
+            result.output.contains(":all sources were migrated before")
+            new File(gradle.projectDir, "remappedSrc/net/fabricmc/example/ExampleMod.java").text == remapped
+
+        when:
+            // Any change to the source tree may change how the other files remap
+            def mixin = new File(gradle.projectDir, "src/main/java/net/fabricmc/example/mixin/ExampleMixin.java")
+            mixin.text = mixin.text + "\n// Changed\n"
+            result = gradle.run(tasks: ["migrateMappings", "--mappings", "21w38a+build.10"])
+
+        then:
+            result.task(":migrateMappings").outcome == SUCCESS
+            result.output.contains(":remapping 2 of 2 source files")
 
         where:
             version << STANDARD_TEST_VERSIONS
@@ -0,0 +1,144 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2026-2017 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.integration
+
+import net.fabricmc.loom.test.util.GradleProjectTestTrait
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import static net.fabricmc.loom.test.LoomTestConstants.*
+import static org.gradle.testkit.runner.TaskOutcome.SUCCESS
+
+class ValidateMixinNameTaskTest extends Specification implements GradleProjectTestTrait {
+    @Unroll
+    def "incremental validation (gradle #version)"() {
+        setup:
+            def gradle = gradleProject(project: "minimalBase", version: version)
+            gradle.buildGradle << '''
+                dependencies {
+                    minecraft "com.mojang:minecraft:1.18.1"
+                    mappings "net.fabricmc:yarn:1.18.1+build.18:v2"
+                    modImplementation "net.fabricmc:fabric-loader:0.12.12"
+                }
+
+                task validateMixinNames(type: net.fabricmc.loom.task.ValidateMixinNameTask) {
+                    source(sourceSets.main.output)
+                    softFailures = true
+                }
+            '''
+            writeMixin(gradle, "StringMixin", "String")
+            writeMixin(gradle, "BadIntegerMixin", "Integer")
+            writeMixin(gradle, "WrongLongMixin", "Long")
+            writeMixin(gradle, "ListMixin", "java.util.ArrayList")
+
+        when:
+            def result = gradle.run(task: "validateMixinNames")
+
+        then:
+            result.task(":validateMixinNames").outcome == SUCCESS
+            reportedErrors(result.output) == [
+                    "com/example/mixin/BadIntegerMixin -> IntegerMixin",
+                    "com/example/mixin/ListMixin -> ArrayListMixin",
+                    "com/example/mixin/WrongLongMixin -> LongMixin",
+            ]
+
+        when:
+            // Rename one invalid mixin, remove another and fix the last one by changing its target
+            mixinFile(gradle, "BadIntegerMixin").delete()
+            writeMixin(gradle, "OtherIntegerMixin", "Integer")
+            mixinFile(gradle, "WrongLongMixin").delete()
+            writeMixin(gradle, "ListMixin", "java.util.List")
+            result = gradle.run(task: "validateMixinNames")
+
+        then:
+            result.task(":validateMixinNames").outcome == SUCCESS
+            reportedErrors(result.output) == [
+                    "com/example/mixin/OtherIntegerMixin -> IntegerMixin",
+            ]
+
+        when:
+            // A corrupt state falls back to validating every class file
+            new File(gradle.projectDir, "build/loom-cache/validateMixinNames-state.json").text = "{ not json"
+            writeMixin(gradle, "BadShortMixin", "Short")
+            result = gradle.run(task: "validateMixinNames")
+
+        then:
+            result.task(":validateMixinNames").outcome == SUCCESS
+            reportedErrors(result.output) == [
+                    "com/example/mixin/BadShortMixin -> ShortMixin",
+                    "com/example/mixin/OtherIntegerMixin -> IntegerMixin",
+            ]
+
+        when:
+            // Fix the renamed mixin by targeting a class that matches its name
+            mixinFile(gradle, "OtherInteger").text = "package com.example.mixin;\n\npublic class OtherInteger {\n}\n"
+            writeMixin(gradle, "OtherIntegerMixin", "OtherInteger")
+            mixinFile(gradle, "BadShortMixin").delete()
+            result = gradle.run(task: "validateMixinNames")
+
+        then:
+            result.task(":validateMixinNames").outcome == SUCCESS
+            !result.output.contains("Mixin name validation failed")
+
+        where:
+            version << STANDARD_TEST_VERSIONS
+    }
+
+    private static File mixinFile(GradleProject gradle, String name) {
+        return new File(gradle.projectDir, "src/main/java/com/example/mixin/${name}.java")
+    }
+
+    private static void writeMixin(GradleProject gradle, String name, String target) {
+        def file = mixinFile(gradle, name)
+        file.parentFile.mkdirs()
+        file.text = """
+            package com.example.mixin;
+
+            import org.spongepowered.asm.mixin.Mixin;
+
+            @Mixin(${target}.class)
+            public abstract class ${name} {
+            }
+            """.stripIndent()
+    }
+
+    // The errors are reported in a single warning, one per line after the prefix
+    private static List<String> reportedErrors(String output) {
+        def lines = output.readLines()
+        def start = lines.findLastIndexOf { it.contains("Mixin name validation failed: ") }
+
+        if (start < 0) {
+            return []
+        }
+
+        def errors = [lines[start].substring(lines[start].indexOf("Mixin name validation failed: ") + "Mixin name validation failed: ".length())]
+
+        for (int i = start + 1; i < lines.size() && lines[i].startsWith("com/"); i++) {
+            errors << lines[i]
+        }
+
+        return errors
+    }
+}
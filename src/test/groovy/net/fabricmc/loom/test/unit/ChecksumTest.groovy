@@ -0,0 +1,130 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import net.fabricmc.loom.util.Checksum
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.attribute.FileTime
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class ChecksumTest extends Specification {
+    def "rehash a file written with a new modification time"() {
+        given:
+            def file = Files.createTempFile("loom-checksum", ".txt")
+            def time = FileTime.fromMillis(1_000_000_000L)
+            write(file, "first", time)
+            def first = Checksum.sha256Hex(file)
+
+        when:
+            write(file, "other", FileTime.fromMillis(2_000_000_000L))
+
+        then:
+            Checksum.sha256Hex(file) != first
+    }
+
+    def "rehash a file written with a new size"() {
+        given:
+            def file = Files.createTempFile("loom-checksum", ".txt")
+            def time = FileTime.fromMillis(1_000_000_000L)
+            write(file, "first", time)
+            def first = Checksum.sha256Hex(file)
+
+        when:
+            write(file, "a longer content", time)
+
+        then:
+            Checksum.sha256Hex(file) != first
+    }
+
+    // Windows does not expose a file key, the size and modification time are the only checks there.
+    @IgnoreIf({ os.windows })
+    def "rehash a file replaced by one with the same size and modification time"() {
+        given:
+            def file = Files.createTempFile("loom-checksum", ".txt")
+            def replacement = Files.createTempFile(file.parent, "loom-checksum", ".txt")
+            def time = FileTime.fromMillis(1_000_000_000L)
+            write(file, "first", time)
+            write(replacement, "other", time)
+            def first = Checksum.sha256Hex(file)
+
+        when:
+            Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING)
+
+        then:
+            Files.getLastModifiedTime(file) == time
+            Checksum.sha256Hex(file) != first
+    }
+
+    def "memoize the hash of an unchanged file"() {
+        given:
+            def file = Files.createTempFile("loom-checksum", ".txt")
+            file.text = "content"
+            def expected = Checksum.sha256Hex(file)
+            def computed = Checksum.getComputedHashCount()
+
+        expect:
+            Checksum.sha256Hex(file) == expected
+            Checksum.getComputedHashCount() == computed
+    }
+
+    def "hash a file once for concurrent requests"() {
+        given:
+            def file = Files.createTempFile("loom-checksum", ".bin")
+            file.bytes = new byte[16 * 1024 * 1024]
+            def executor = Executors.newFixedThreadPool(8)
+            def start = new CountDownLatch(1)
+            def computed = Checksum.getComputedHashCount()
+
+        when:
+            def futures = (1..8).collect {
+                executor.submit({
+                    start.await()
+                    return Checksum.sha256Hex(file)
+                } as Callable<String>)
+            }
+            start.countDown()
+            def hashes = futures.collect { it.get(1, TimeUnit.MINUTES) }
+
+        then:
+            hashes.toSet().size() == 1
+            Checksum.getComputedHashCount() == computed + 1
+
+        cleanup:
+            executor.shutdownNow()
+    }
+
+    private static void write(Path file, String content, FileTime time) {
+        file.text = content
+        Files.setLastModifiedTime(file, time)
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import net.fabricmc.loom.configuration.accesswidener.ClassMemberIndex
+import net.fabricmc.loom.util.zip.RawZipWriter
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+class ClassMemberIndexTest extends Specification {
+    def "read written index"() {
+        given:
+            def jar = Files.createTempFile("loom", ".jar")
+            def directory = Files.createTempDirectory("loom")
+
+            def writer = new ClassWriter(0)
+            writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, "net/example/Example", null, "java/lang/Object", null)
+            writer.visitField(Opcodes.ACC_PRIVATE, "value", "I", null, null).visitEnd()
+            writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "setValue", "(I)V", null, null).visitEnd()
+            writer.visitEnd()
+
+            new RawZipWriter(jar).withCloseable {
+                it.putEntry("net/example/Example.class", writer.toByteArray())
+                it.putEntry("readme.txt", "Not a class".bytes)
+            }
+
+        when:
+            def index = ClassMemberIndex.getOrCreate([jar], directory)[0]
+
+        then:
+            index.hasClass("net/example/Example")
+            index.hasField("net/example/Example", "value", "I")
+            index.hasMethod("net/example/Example", "setValue", "(I)V")
+
+            !index.hasClass("net/example/Missing")
+            !index.hasField("net/example/Example", "value", "J")
+            !index.hasMethod("net/example/Example", "getValue", "()I")
+            !index.hasMethod("net/example/Missing", "setValue", "(I)V")
+
+            // Only the index, no lock file next to it
+            Files.list(directory).withCloseable { it.count() } == 1
+    }
+}
@@ -25,6 +25,7 @@
 package net.fabricmc.loom.test.unit
 
 import net.fabricmc.loom.util.ipc.IPCClient
+import net.fabricmc.loom.util.ipc.IPCMessageHandler
 import net.fabricmc.loom.util.ipc.IPCServer
 import spock.lang.Specification
 import spock.lang.Timeout
@@ -62,4 +63,48 @@ class IPCTest extends Specification {
             received[0] == "Test"
             received[1] == "Hello"
     }
+
+    def "ipc structured messages"() {
+        given:
+            def path = Files.createTempFile("loom", "ipc")
+            Files.deleteIfExists(path)
+
+            def received = Collections.synchronizedList([])
+            def handler = new IPCMessageHandler() {
+                @Override
+                void log(long threadId, String message) {
+                    received << "log ${threadId} ${message}".toString()
+                }
+
+                @Override
+                void progress(long threadId, int index, int total) {
+                    received << "progress ${threadId} ${index}/${total}".toString()
+                }
+
+                @Override
+                void closeLoggers() {
+                    received << "close"
+                }
+            }
+
+        when:
+            def ipcServer = new IPCServer(path, handler)
+            def threadId = Thread.currentThread().id
+
+            new IPCClient(path).withCloseable { client ->
+                client.accept("Test")
+                client.progress(1, 10)
+                client.accept("x" * 100_000) // Larger than the client buffer
+                client.closeLoggers()
+            }
+
+            while (received.size() != 4) { }
+            ipcServer.close()
+
+        then:
+            received[0] == "log ${threadId} Test".toString()
+            received[1] == "progress ${threadId} 1/10".toString()
+            received[2] == "log ${threadId} ${"x" * 100_000}".toString()
+            received[3] == "close"
+    }
 }
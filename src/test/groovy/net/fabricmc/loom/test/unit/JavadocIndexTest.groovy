@@ -0,0 +1,101 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import net.fabricmc.loom.decompilers.JavadocIndex
+import net.fabricmc.mappingio.MappingReader
+import net.fabricmc.mappingio.tree.MemoryMappingTree
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.attribute.FileTime
+import java.time.Instant
+
+class JavadocIndexTest extends Specification {
+    private static final String MAPPINGS = [
+            "tiny\t2\t0\tintermediary\tnamed",
+            "c\tclass_1\tnet/example/Example",
+            "\tc\tAn example class.",
+            "\tf\tI\tfield_1\tvalue",
+            "\t\tc\tThe value.",
+            "\tm\t(I)V\tmethod_1\tsetValue",
+            "\t\tc\tSets the value.",
+            "\t\tp\t1\tparam_1\tvalue",
+            "\t\t\tc\tThe new value.",
+            "\tm\t()V\tmethod_2\tundocumented",
+            "c\tclass_2\tnet/example/Undocumented",
+            ""
+    ].join("\n")
+
+    def "read written index"() {
+        given:
+            def mappingTree = new MemoryMappingTree()
+            MappingReader.read(new StringReader(MAPPINGS), mappingTree)
+
+            def path = Files.createTempFile("loom", ".idx")
+
+        when:
+            JavadocIndex.write(mappingTree, "named", path)
+            def index = JavadocIndex.get(path)
+            def classDoc = index.getClass("net/example/Example")
+            def methodDoc = classDoc.getMethod("setValue", "(I)V")
+
+        then:
+            classDoc.comment() == "An example class."
+            classDoc.getFieldComment("value", "I") == "The value."
+            methodDoc.comment() == "Sets the value."
+            methodDoc.params().size() == 1
+            methodDoc.params()[0].name() == "value"
+            methodDoc.params()[0].comment() == "The new value."
+
+            classDoc.getMethod("undocumented", "()V") == null
+            index.getClass("net/example/Undocumented") == null
+            index.getClass("class_1") == null
+
+        cleanup:
+            JavadocIndex.clear()
+    }
+
+    def "retained index survives a touched modification time"() {
+        given:
+            def mappingTree = new MemoryMappingTree()
+            MappingReader.read(new StringReader(MAPPINGS), mappingTree)
+
+            def path = Files.createTempFile("loom", ".idx")
+            JavadocIndex.write(mappingTree, "named", path)
+
+        when:
+            def index = JavadocIndex.get(path)
+            JavadocIndex.retain(path)
+            // The plugin marks the index as recently used before each decompile
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now().plusSeconds(60)))
+
+        then:
+            JavadocIndex.get(path).is(index)
+
+        cleanup:
+            JavadocIndex.clear()
+    }
+}
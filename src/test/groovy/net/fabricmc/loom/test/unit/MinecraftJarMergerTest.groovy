@@ -0,0 +1,177 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJarMerger
+import net.fabricmc.loom.util.zip.RawZipWriter
+import net.fabricmc.stitch.merge.JarMerger
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.ClassNode
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipFile
+
+class MinecraftJarMergerTest extends Specification {
+    @Unroll
+    def "merge like stitch (synthetic params offset: #offset)"() {
+        given:
+            def dir = Files.createTempDirectory("loom-merge-test")
+            def client = dir.resolve("client.jar")
+            def server = dir.resolve("server.jar")
+            def expected = dir.resolve("expected.jar")
+            def actual = dir.resolve("actual.jar")
+
+            writeJar(client, [
+                    "net/minecraft/Shared.class": createClass("net/minecraft/Shared", ["common"]),
+                    "net/minecraft/Mode.class": createEnum("net/minecraft/Mode"),
+                    "net/minecraft/Differs.class": createClass("net/minecraft/Differs", ["common", "render"]),
+                    "net/minecraft/ClientOnly.class": createClass("net/minecraft/ClientOnly", ["render"]),
+                    "Obfuscated.class": createClass("Obfuscated", ["a"]),
+                    "assets/client.txt": "client".bytes,
+                    "shared.txt": "client side".bytes,
+                    "META-INF/MANIFEST.MF": "Manifest-Version: 1.0\n".bytes,
+            ])
+            writeJar(server, [
+                    "net/minecraft/Shared.class": createClass("net/minecraft/Shared", ["common"]),
+                    "net/minecraft/Mode.class": createEnum("net/minecraft/Mode"),
+                    "net/minecraft/Differs.class": createClass("net/minecraft/Differs", ["common", "tick"]),
+                    "net/minecraft/ServerOnly.class": createClass("net/minecraft/ServerOnly", ["tick"]),
+                    "com/example/Library.class": createClass("com/example/Library", ["library"]),
+                    "data/server.txt": "server".bytes,
+                    "shared.txt": "server side".bytes,
+            ])
+
+        when:
+            new JarMerger(client.toFile(), server.toFile(), expected.toFile()).withCloseable {
+                if (offset) it.enableSyntheticParamsOffset()
+                it.merge()
+            }
+            new MinecraftJarMerger(client, server, actual).withCloseable {
+                if (offset) it.enableSyntheticParamsOffset()
+                it.merge()
+            }
+
+            def expectedEntries = readEntries(expected)
+            def actualEntries = readEntries(actual)
+
+        then:
+            actualEntries.keySet() == expectedEntries.keySet()
+            !actualEntries.containsKey("com/example/Library.class")
+            new String(actualEntries["shared.txt"]) == "client side"
+
+            expectedEntries.findAll { it.key.endsWith(".class") }.each { name, bytes ->
+                assert actualEntries[name] == bytes : name
+                assert environmentAnnotations(actualEntries[name]) == environmentAnnotations(bytes) : name
+            }
+
+            !environmentAnnotations(actualEntries["net/minecraft/ClientOnly.class"]).isEmpty()
+            !environmentAnnotations(actualEntries["net/minecraft/Differs.class"]).isEmpty()
+            !Files.exists(dir.resolve("actual.jar.tmp"))
+
+        where:
+            offset << [false, true]
+    }
+
+    private static void writeJar(Path path, Map<String, byte[]> entries) {
+        new RawZipWriter(path).withCloseable { writer ->
+            entries.each { name, bytes -> writer.putEntry(name, bytes) }
+        }
+    }
+
+    private static Map<String, byte[]> readEntries(Path jar) {
+        def entries = [:]
+
+        new ZipFile(jar.toFile()).withCloseable { zip ->
+            zip.entries().findAll { !it.directory }.each { entries[it.name] = zip.getInputStream(it).bytes }
+        }
+
+        return entries
+    }
+
+    private static byte[] createClass(String name, List<String> methods) {
+        def writer = new ClassWriter(0)
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+
+        methods.each {
+            def method = writer.visitMethod(Opcodes.ACC_PUBLIC, it, "()V", null, null)
+            method.visitCode()
+            method.visitInsn(Opcodes.RETURN)
+            method.visitMaxs(0, 1)
+            method.visitEnd()
+        }
+
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+
+    // An enum constructor, with the synthetic name and ordinal parameters and an annotated parameter
+    private static byte[] createEnum(String name) {
+        def writer = new ClassWriter(0)
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_ENUM | Opcodes.ACC_FINAL, name, null, "java/lang/Enum", null)
+
+        def constructor = writer.visitMethod(Opcodes.ACC_PRIVATE, "<init>", "(Ljava/lang/String;II)V", null, null)
+        constructor.visitAnnotableParameterCount(1, false)
+        constructor.visitParameterAnnotation(0, "Ljavax/annotation/Nullable;", false).visitEnd()
+        constructor.visitCode()
+        constructor.visitVarInsn(Opcodes.ALOAD, 0)
+        constructor.visitVarInsn(Opcodes.ALOAD, 1)
+        constructor.visitVarInsn(Opcodes.ILOAD, 2)
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Enum", "<init>", "(Ljava/lang/String;I)V", false)
+        constructor.visitInsn(Opcodes.RETURN)
+        constructor.visitMaxs(3, 4)
+        constructor.visitEnd()
+
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+
+    private static List<String> environmentAnnotations(byte[] bytes) {
+        def node = new ClassNode()
+        new ClassReader(bytes).accept(node, 0)
+
+        def annotations = []
+        def collect = { String owner, List nodes ->
+            nodes?.findAll { it.desc.contains("Environment") }?.each { annotations << owner + " " + it.desc + " " + it.values }
+        }
+
+        collect(node.name, node.visibleAnnotations)
+        collect(node.name, node.invisibleAnnotations)
+        node.methods.each {
+            collect(it.name + it.desc, it.visibleAnnotations)
+            collect(it.name + it.desc, it.invisibleAnnotations)
+        }
+        node.fields.each {
+            collect(it.name, it.visibleAnnotations)
+            collect(it.name, it.invisibleAnnotations)
+        }
+
+        return annotations
+    }
+}
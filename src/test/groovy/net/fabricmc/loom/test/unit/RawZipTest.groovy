@@ -0,0 +1,85 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import net.fabricmc.loom.util.ZipUtils
+import net.fabricmc.loom.util.zip.RawZipFile
+import net.fabricmc.loom.util.zip.RawZipWriter
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+
+class RawZipTest extends Specification {
+    def "copy raw entries"() {
+        given:
+            def dir = File.createTempDir()
+            def input = File.createTempFile("loom-zip-test", ".zip").toPath()
+            def output = File.createTempFile("loom-zip-test", ".zip").toPath()
+            new File(dir, "a/test.txt").with {
+                parentFile.mkdirs()
+                text = "This is a test of raw copying " * 100
+            }
+            new File(dir, "b.txt").text = "Hello"
+            ZipUtils.pack(dir.toPath(), input)
+
+        when:
+            RawZipFile.open(input).withCloseable { zip ->
+                new RawZipWriter(output).withCloseable { writer ->
+                    writer.putDirectory("a")
+                    writer.copyEntry(zip, zip.getEntry("a/test.txt"))
+                    writer.putEntry("c.txt", "Written".getBytes(StandardCharsets.UTF_8))
+                }
+            }
+
+        then:
+            Files.exists(output)
+            ZipUtils.contains(output, "a/test.txt")
+            !ZipUtils.contains(output, "b.txt")
+            new String(ZipUtils.unpack(output, "a/test.txt"), StandardCharsets.UTF_8) == "This is a test of raw copying " * 100
+            new String(ZipUtils.unpack(output, "c.txt"), StandardCharsets.UTF_8) == "Written"
+            RawZipFile.open(output).withCloseable { zip ->
+                zip.entries()*.name() == ["a/", "a/test.txt", "c.txt"]
+            }
+    }
+
+    def "stream entries"() {
+        given:
+            def dir = File.createTempDir()
+            def input = File.createTempFile("loom-zip-test", ".zip").toPath()
+            new File(dir, "test.txt").text = "This is a test of streaming " * 1000
+            ZipUtils.pack(dir.toPath(), input)
+
+        when:
+            def text = RawZipFile.open(input).withCloseable { zip ->
+                zip.openInputStream(zip.getEntry("test.txt")).withCloseable {
+                    new String(it.readAllBytes(), StandardCharsets.UTF_8)
+                }
+            }
+
+        then:
+            text == "This is a test of streaming " * 1000
+    }
+}
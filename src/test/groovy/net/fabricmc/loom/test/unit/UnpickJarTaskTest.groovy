@@ -0,0 +1,209 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import net.fabricmc.loom.task.UnpickJarTask
+import net.fabricmc.loom.util.zip.RawZipWriter
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Handle
+import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.Type
+import org.objectweb.asm.util.TraceClassVisitor
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipFile
+
+class UnpickJarTaskTest extends Specification {
+    private static final String DEFINITIONS = """v2
+constant values test/Constants ONE
+constant values test/Constants TWO
+target_method test/Api set (I)V
+\tparam 0 values
+"""
+
+    def "unpicking the target classes equals a full unpick"() {
+        given:
+            def dir = Files.createTempDirectory("loom-unpick-test")
+            def input = dir.resolve("input.jar")
+            def constants = dir.resolve("constants.jar")
+            def definitions = dir.resolve("definitions.unpick")
+            def expected = dir.resolve("expected.jar")
+            def actual = dir.resolve("actual.jar")
+
+            definitions.text = DEFINITIONS
+            writeJar(constants, ["test/Constants.class": createConstants()])
+            writeJar(input, [
+                    "test/Api.class": createApi(),
+                    "test/Caller.class": createCaller(),
+                    "test/LambdaCaller.class": createLambdaCaller(),
+                    "test/Unrelated.class": createUnrelated(),
+                    "test/readme.txt": "not a class".bytes,
+            ])
+
+        when:
+            UnpickJarTask.UnpickAction.unpick(input, expected, input, definitions, constants, [])
+            UnpickJarTask.UnpickAction.unpickJar(input, actual, definitions, [constants], [])
+
+        then:
+            def expectedEntries = readEntries(expected)
+            def actualEntries = readEntries(actual)
+
+            actualEntries.keySet() == expectedEntries.keySet()
+            actualEntries.each { name, content ->
+                assert content == expectedEntries[name] : name
+            }
+
+            // The constants were actually unpicked, in the direct and the lambda caller
+            actualEntries["test/Caller.class"].contains("GETSTATIC test/Constants.ONE : I")
+            actualEntries["test/LambdaCaller.class"].contains("GETSTATIC test/Constants.TWO : I")
+            !actualEntries["test/Unrelated.class"].contains("GETSTATIC")
+
+        cleanup:
+            dir.deleteDir()
+    }
+
+    // The classes as text, unpick may write the classes it was given again even when it did not change them
+    private static Map<String, String> readEntries(Path jar) {
+        def entries = [:]
+
+        new ZipFile(jar.toFile()).withCloseable { zip ->
+            zip.entries().each { entry ->
+                def bytes = zip.getInputStream(entry).bytes
+
+                if (entry.name.endsWith(".class")) {
+                    def writer = new StringWriter()
+                    new ClassReader(bytes).accept(new TraceClassVisitor(new PrintWriter(writer)), 0)
+                    entries[entry.name] = writer.toString()
+                } else {
+                    entries[entry.name] = new String(bytes)
+                }
+            }
+        }
+
+        return entries
+    }
+
+    private static void writeJar(Path path, Map<String, byte[]> entries) {
+        new RawZipWriter(path).withCloseable { writer ->
+            entries.each { name, data ->
+                writer.putEntry(name, data)
+            }
+        }
+    }
+
+    private static byte[] createConstants() {
+        def writer = createClass("test/Constants")
+        writer.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "ONE", "I", null, 1).visitEnd()
+        writer.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "TWO", "I", null, 2).visitEnd()
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+
+    // Declares the target method, and calls it itself
+    private static byte[] createApi() {
+        def writer = createClass("test/Api")
+        method(writer, Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "set", "(I)V") {
+            it.visitInsn(Opcodes.RETURN)
+        }
+        method(writer, Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "reset", "()V") {
+            it.visitInsn(Opcodes.ICONST_1)
+            it.visitMethodInsn(Opcodes.INVOKESTATIC, "test/Api", "set", "(I)V", false)
+            it.visitInsn(Opcodes.RETURN)
+        }
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+
+    private static byte[] createCaller() {
+        def writer = createClass("test/Caller")
+        method(writer, Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "call", "()V") {
+            it.visitInsn(Opcodes.ICONST_1)
+            it.visitMethodInsn(Opcodes.INVOKESTATIC, "test/Api", "set", "(I)V", false)
+            it.visitInsn(Opcodes.RETURN)
+        }
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+
+    // Calls the target method from a lambda body, and through a method reference
+    private static byte[] createLambdaCaller() {
+        def writer = createClass("test/LambdaCaller")
+        def metafactory = new Handle(Opcodes.H_INVOKESTATIC, "java/lang/invoke/LambdaMetafactory", "metafactory",
+                "(Ljava/lang/invoke/MethodHandles\$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;", false)
+
+        method(writer, Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "lambda", "()Ljava/lang/Runnable;") {
+            it.visitInvokeDynamicInsn("run", "()Ljava/lang/Runnable;", metafactory,
+                    Type.getType("()V"), new Handle(Opcodes.H_INVOKESTATIC, "test/LambdaCaller", "lambda\$lambda\$0", "()V", false), Type.getType("()V"))
+            it.visitInsn(Opcodes.ARETURN)
+        }
+        method(writer, Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "reference", "()Ljava/util/function/IntConsumer;") {
+            it.visitInvokeDynamicInsn("accept", "()Ljava/util/function/IntConsumer;", metafactory,
+                    Type.getType("(I)V"), new Handle(Opcodes.H_INVOKESTATIC, "test/Api", "set", "(I)V", false), Type.getType("(I)V"))
+            it.visitInsn(Opcodes.ARETURN)
+        }
+        method(writer, Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC, "lambda\$lambda\$0", "()V") {
+            it.visitInsn(Opcodes.ICONST_2)
+            it.visitMethodInsn(Opcodes.INVOKESTATIC, "test/Api", "set", "(I)V", false)
+            it.visitInsn(Opcodes.RETURN)
+        }
+        writer.visitInnerClass("java/lang/invoke/MethodHandles\$Lookup", "java/lang/invoke/MethodHandles", "Lookup", Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_STATIC)
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+
+    // Passes the same constants to a method that is not a target
+    private static byte[] createUnrelated() {
+        def writer = createClass("test/Unrelated")
+        method(writer, Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "set", "(I)I") {
+            it.visitVarInsn(Opcodes.ILOAD, 0)
+            it.visitInsn(Opcodes.IRETURN)
+        }
+        method(writer, Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "call", "()I") {
+            it.visitInsn(Opcodes.ICONST_1)
+            it.visitMethodInsn(Opcodes.INVOKESTATIC, "test/Unrelated", "set", "(I)I", false)
+            it.visitInsn(Opcodes.IRETURN)
+        }
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+
+    private static ClassWriter createClass(String name) {
+        def writer = new ClassWriter(ClassWriter.COMPUTE_MAXS)
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+        return writer
+    }
+
+    private static void method(ClassWriter writer, int access, String name, String descriptor, Closure body) {
+        MethodVisitor method = writer.visitMethod(access, name, descriptor, null, null)
+        method.visitCode()
+        body(method)
+        method.visitMaxs(0, 0)
+        method.visitEnd()
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import net.fabricmc.loom.configuration.providers.minecraft.VersionMetadataIndex
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+class VersionMetadataIndexTest extends Specification {
+    def "put and get"() {
+        given:
+            def userCache = Files.createTempDirectory("loom-index-test")
+            def entry = new VersionMetadataIndex.Entry("https://example.com/manifest.json", "https://example.com/1.19.json", "abc")
+
+        when:
+            VersionMetadataIndex.put(userCache, "1.19", entry)
+            VersionMetadataIndex.put(userCache, "1.18", new VersionMetadataIndex.Entry("https://example.com/manifest.json", "https://example.com/1.18.json", "def"))
+
+        then:
+            VersionMetadataIndex.get(userCache, "1.19") == entry
+            VersionMetadataIndex.get(userCache, "1.18").sha1() == "def"
+            VersionMetadataIndex.get(userCache, "1.17") == null
+    }
+
+    def "invalid index is ignored"() {
+        given:
+            def userCache = Files.createTempDirectory("loom-index-test")
+            userCache.resolve("version_metadata_index.json").text = "not json"
+
+        expect:
+            VersionMetadataIndex.get(userCache, "1.19") == null
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.layeredmappings
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipFile
+
+import net.fabricmc.loom.configuration.providers.mappings.extras.unpick.UnpickConstantJars
+import net.fabricmc.loom.util.zip.RawZipWriter
+import spock.lang.Specification
+
+class UnpickConstantJarsTest extends Specification {
+    def "combine constant jars"() {
+        given:
+            def dir = Files.createTempDirectory("loom-unpick-constants")
+            def first = dir.resolve("first.jar")
+            def second = dir.resolve("second.jar")
+            def combined = dir.resolve("combined.jar")
+
+            writeJar(first, [
+                    "a/Colors.class": "first colors",
+                    "a/Shared.class": "first shared",
+                    "META-INF/MANIFEST.MF": "Manifest-Version: 1.0\n",
+            ])
+            writeJar(second, [
+                    "b/Modes.class": "second modes",
+                    "a/Shared.class": "second shared",
+                    "b/readme.txt": "not a class",
+            ])
+
+        when:
+            UnpickConstantJars.combine([first, second], combined)
+            def entries = readJar(combined)
+
+        then:
+            // Only the classes are kept, the first jar providing a class wins
+            entries == [
+                    "a/Colors.class": "first colors",
+                    "a/Shared.class": "first shared",
+                    "b/Modes.class": "second modes",
+            ]
+
+        cleanup:
+            dir.deleteDir()
+    }
+
+    private static void writeJar(Path path, Map<String, String> entries) {
+        new RawZipWriter(path).withCloseable { writer ->
+            entries.each { name, content ->
+                writer.putEntry(name, content.bytes)
+            }
+        }
+    }
+
+    private static Map<String, String> readJar(Path path) {
+        new ZipFile(path.toFile()).withCloseable { zip ->
+            return zip.entries().collectEntries { [it.name, new String(zip.getInputStream(it).bytes)] }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.layeredmappings
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Path
+import java.nio.file.Paths
+
+import net.fabricmc.loom.api.mappings.layered.MappingLayer
+import net.fabricmc.loom.configuration.providers.mappings.LayeredMappingsProcessor
+import net.fabricmc.loom.configuration.providers.mappings.extras.unpick.UnpickDefinitions
+import net.fabricmc.loom.configuration.providers.mappings.extras.unpick.UnpickLayer
+import net.fabricmc.mappingio.MappingVisitor
+import spock.lang.Specification
+
+class UnpickDefinitionsTest extends Specification {
+    def "merge definitions"() {
+        when:
+            def merged = merge("""v2
+constant colors a/Colors RED
+target_method a/Draw fill (I)V
+\tparam 0 colors
+""", """v2
+# Project local constants
+constant colors b/MoreColors PINK
+constant colors a/Colors RED
+flag modes b/Modes FAST
+target_method a/Draw fill (I)V
+\tparam 0 colors
+target_method b/Render mode (I)I
+\tparam 0 modes
+\treturn modes
+""")
+        then:
+            merged == """v2
+constant colors a/Colors RED
+constant colors b/MoreColors PINK
+flag modes b/Modes FAST
+target_method a/Draw fill (I)V
+\tparam 0 colors
+target_method b/Render mode (I)I
+\tparam 0 modes
+\treturn modes
+"""
+    }
+
+    def "conflicting target groups"() {
+        when:
+            merge("""v2
+target_method a/Draw fill (I)V
+\tparam 0 colors
+""", """v2
+target_method a/Draw fill (I)V
+\tparam 0 modes
+""")
+        then:
+            def e = thrown(IllegalStateException)
+            e.message.contains("parameter 0 of target_method a/Draw fill (I)V")
+    }
+
+    def "conflicting group kinds"() {
+        when:
+            merge("""v2
+constant modes b/Modes FAST
+""", """v2
+flag modes b/Modes SLOW
+""")
+        then:
+            thrown(IllegalStateException)
+    }
+
+    def "different unpick versions"() {
+        when:
+            new LayeredMappingsProcessor(null).getUnpickData([
+                    layer("net.fabricmc.unpick", "2.2.0", null),
+                    layer("net.fabricmc.unpick", "2.3.0", null),
+            ])
+        then:
+            def e = thrown(UnsupportedOperationException)
+            e.message.contains("net.fabricmc.unpick:2.2.0 and net.fabricmc.unpick:2.3.0")
+    }
+
+    def "constants of every layer"() {
+        when:
+            def constants = new LayeredMappingsProcessor(null).getUnpickConstants([
+                    layer("net.fabricmc.unpick", "2.3.0", Paths.get("first-constants.jar")),
+                    new TestUnpickLayer(data: null, constants: Paths.get("unused-constants.jar")),
+                    layer("net.fabricmc.unpick", "2.3.0", Paths.get("second-constants.jar")),
+            ])
+        then:
+            constants == [Paths.get("first-constants.jar"), Paths.get("second-constants.jar")]
+    }
+
+    def "layer without constants"() {
+        when:
+            new LayeredMappingsProcessor(null).getUnpickConstants([
+                    layer("net.fabricmc.unpick", "2.3.0", Paths.get("constants.jar")),
+                    layer("net.fabricmc.unpick", "2.3.0", null),
+            ])
+        then:
+            def e = thrown(UnsupportedOperationException)
+            e.message.contains("unpick constants")
+    }
+
+    private static TestUnpickLayer layer(String unpickGroup, String unpickVersion, Path constants) {
+        def metadata = new UnpickLayer.UnpickData.Metadata(1, unpickGroup, unpickVersion)
+        return new TestUnpickLayer(data: new UnpickLayer.UnpickData(metadata, "v2\n".getBytes(StandardCharsets.UTF_8)), constants: constants)
+    }
+
+    private static String merge(String... definitions) {
+        def layers = definitions.collect { UnpickDefinitions.read(it.getBytes(StandardCharsets.UTF_8)) }
+        return new String(UnpickDefinitions.merge(layers).write(), StandardCharsets.UTF_8)
+    }
+
+    private static class TestUnpickLayer implements MappingLayer, UnpickLayer {
+        UnpickLayer.UnpickData data
+        Path constants
+
+        @Override
+        void visit(MappingVisitor mappingVisitor) {
+        }
+
+        @Override
+        UnpickLayer.UnpickData getUnpickData() {
+            return data
+        }
+
+        @Override
+        Path getUnpickConstants() {
+            return constants
+        }
+    }
+}
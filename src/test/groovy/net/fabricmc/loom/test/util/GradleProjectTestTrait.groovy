@@ -247,7 +247,9 @@ trait GradleProjectTestTrait {
         }
 
         File getGeneratedLocalSources(String mappings) {
-            return new File(getProjectDir(), ".gradle/loom-cache/${mappings}/minecraft-project-@-merged-named-sources.jar")
+            // Processed jars are named after the hash of their processors
+            def dir = new File(getProjectDir(), ".gradle/loom-cache/${mappings}")
+            return dir.listFiles().find { it.name ==~ /minecraft-processed-[0-9a-f]+-merged-named-sources\.jar/ }
         }
 
         void buildSrc(String name) {